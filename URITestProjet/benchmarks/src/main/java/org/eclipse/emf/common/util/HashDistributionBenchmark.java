@@ -0,0 +1,111 @@
+package org.eclipse.emf.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link WeakInterningHashSet#PRIME_CAPACITIES prime} and {@link WeakInterningHashSet#POWER_OF_TWO power of two} capacities
+ * for the hash codes of URI strings and of segment strings.
+ * The benchmark measures the cost of computing the {@link WeakInterningHashSet#index(int, int) index};
+ * the setup prints the distribution of the hash codes over the table,
+ * i.e., the maximum and average length of the non-empty chains and the number of chains of each length,
+ * which is what determines the cost of a lookup once the index is known.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashDistributionBenchmark
+{
+  static final int SIZE = 100000;
+
+  @Param({ "uri", "segment" })
+  String keys;
+
+  @Param({ "false", "true" })
+  boolean powerOfTwo;
+
+  int[] hashCodes;
+
+  int capacity;
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    hashCodes = new int[SIZE];
+    for (int i = 0; i < SIZE; ++i)
+    {
+      String string = "uri".equals(keys) ? URIPoolBenchmark.uriString("", i) : "file" + i + ".xmi";
+      hashCodes[i] = string.hashCode();
+    }
+
+    // Use the capacity the pool would have with this many entries.
+    //
+    URIPool pool = new URIPool(null, 1, powerOfTwo ? URIPool.POWER_OF_TWO : 0);
+    pool.grow(SIZE * 4 / 3 + 1);
+    capacity = pool.entries.length;
+
+    int[] chainLengths = new int[capacity];
+    int maximumChainLength = 0;
+    int usedIndexCount = 0;
+    for (int hashCode : hashCodes)
+    {
+      int chainLength = ++chainLengths[WeakInterningHashSet.index(hashCode, capacity)];
+      if (chainLength == 1)
+      {
+        ++usedIndexCount;
+      }
+      if (chainLength > maximumChainLength)
+      {
+        maximumChainLength = chainLength;
+      }
+    }
+    int[] histogram = new int[maximumChainLength + 1];
+    for (int chainLength : chainLengths)
+    {
+      ++histogram[chainLength];
+    }
+
+    StringBuilder result = new StringBuilder();
+    result.append("keys=").append(keys).append(" powerOfTwo=").append(powerOfTwo).append(" capacity=").append(capacity);
+    result.append(" maximumChainLength=").append(maximumChainLength);
+    result.append(" averageChainLength=").append((double)SIZE / usedIndexCount);
+    result.append(" histogram=");
+    for (int i = 0; i < histogram.length; ++i)
+    {
+      result.append(i == 0 ? "[" : ", ").append(histogram[i]);
+    }
+    result.append(']');
+    System.out.println();
+    System.out.println(result);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public int index()
+  {
+    int[] hashCodes = this.hashCodes;
+    int capacity = this.capacity;
+    int result = 0;
+    for (int i = 0; i < SIZE; ++i)
+    {
+      result += WeakInterningHashSet.index(hashCodes[i], capacity);
+    }
+    return result;
+  }
+}
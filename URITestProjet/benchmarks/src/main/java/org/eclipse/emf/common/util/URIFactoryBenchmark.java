@@ -0,0 +1,233 @@
+package org.eclipse.emf.common.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the public factory and navigation methods of {@link URI}.
+ * All inputs are already interned when measurement starts, so these are the steady state, pool hit, costs;
+ * the URIs are held strongly by the state so the weak pool can't discard them between invocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URIFactoryBenchmark
+{
+  String uriString;
+  String uriWithFragmentString;
+  byte[] uriBytes;
+  char[] uriCharacters;
+  String filePath;
+  String platformPath;
+  String[] segments;
+  String segment;
+  String unencodedSegment;
+  String encodedSegment;
+
+  URI uri;
+  URI uriWithFragment;
+  URI base;
+  URI relative;
+  URI absolute;
+  URI appended;
+  URI fileURI;
+  URI platformURI;
+  URI hierarchicalURI;
+  URI resolved;
+  URI deresolved;
+  URI[] oldPrefixes;
+  URI[] newPrefixes;
+  URIPrefixMap prefixMap;
+  URI remapped;
+
+  @Setup
+  public void setup()
+  {
+    uriString = "http://www.eclipse.org/emf/2002/Ecore/models/library.ecore";
+    uriWithFragmentString = uriString + "#//Library/books";
+    uriBytes = uriString.getBytes(URI.UTF_8);
+    uriCharacters = ("<a href=\"" + uriString + "\"/>").toCharArray();
+    filePath = "/home/user/workspace/project/model/library.ecore";
+    platformPath = "/project/model/library.ecore";
+    segments = new String[] { "project", "model", "library.ecore" };
+    segment = "library.genmodel";
+    unencodedSegment = "library model (copy).ecore";
+    encodedSegment = "library%20model%20%C3%A9t%C3%A9.ecore";
+
+    base = URI.createURI("platform:/resource/project/model/library.ecore");
+    relative = URI.createURI("../other/books.xmi");
+    absolute = URI.createURI("platform:/resource/project/other/books.xmi");
+
+    // Warm the pool and keep each result strongly reachable.
+    //
+    uri = URI.createURI(uriString);
+    uriWithFragment = URI.createURI(uriWithFragmentString);
+    fileURI = URI.createFileURI(filePath);
+    platformURI = URI.createPlatformResourceURI(platformPath, true);
+    hierarchicalURI = URI.createHierarchicalURI("platform", null, null, segments, null, null);
+    appended = base.appendSegment(segment);
+    resolved = relative.resolve(base);
+    deresolved = absolute.deresolve(base);
+
+    // A workspace's worth of project mappings, with the one that applies registered last.
+    //
+    oldPrefixes = new URI[64];
+    newPrefixes = new URI[64];
+    prefixMap = new URIPrefixMap();
+    for (int i = 0; i < oldPrefixes.length; ++i)
+    {
+      String project = i == oldPrefixes.length - 1 ? "project" : "project" + i;
+      oldPrefixes[i] = URI.createURI("platform:/resource/" + project + "/");
+      newPrefixes[i] = URI.createURI("file:/home/user/workspace/" + project + "/");
+      prefixMap.put(oldPrefixes[i], newPrefixes[i]);
+    }
+    remapped = prefixMap.replacePrefix(absolute);
+  }
+
+  @Benchmark
+  public URI createURI()
+  {
+    return URI.createURI(uriString);
+  }
+
+  @Benchmark
+  public URI createURIWithFragment()
+  {
+    return URI.createURI(uriWithFragmentString);
+  }
+
+  /**
+   * Finds the URI for UTF-8 encoded bytes without creating a string, for comparison with {@link #createURIFromDecodedBytes()}.
+   */
+  @Benchmark
+  public URI createURIFromBytes()
+  {
+    return URI.createURI(uriBytes, 0, uriBytes.length);
+  }
+
+  /**
+   * Decodes UTF-8 encoded bytes into a string first, as a loader that doesn't use {@link URI#createURI(byte[], int, int)} must.
+   */
+  @Benchmark
+  public URI createURIFromDecodedBytes()
+  {
+    return URI.createURI(new String(uriBytes, URI.UTF_8));
+  }
+
+  /**
+   * Finds the URI for a range of a character array, as a SAX content handler would, without creating a substring.
+   */
+  @Benchmark
+  public URI createURIFromCharacters()
+  {
+    return URI.createURI(uriCharacters, 9, uriCharacters.length - 12);
+  }
+
+  @Benchmark
+  public URI createFileURI()
+  {
+    return URI.createFileURI(filePath);
+  }
+
+  @Benchmark
+  public String toFileString()
+  {
+    return fileURI.toFileString();
+  }
+
+  @Benchmark
+  public URI createPlatformResourceURI()
+  {
+    return URI.createPlatformResourceURI(platformPath, true);
+  }
+
+  @Benchmark
+  public URI createHierarchicalURI()
+  {
+    return URI.createHierarchicalURI("platform", null, null, segments, null, null);
+  }
+
+  @Benchmark
+  public boolean validSegments()
+  {
+    return URI.validSegments(segments);
+  }
+
+  @Benchmark
+  public String encodeSegment()
+  {
+    return URI.encodeSegment(unencodedSegment, false);
+  }
+
+  @Benchmark
+  public String decodeSegment()
+  {
+    return URI.decode(encodedSegment);
+  }
+
+  @Benchmark
+  public URI appendSegment()
+  {
+    return base.appendSegment(segment);
+  }
+
+  @Benchmark
+  public URI resolve()
+  {
+    return relative.resolve(base);
+  }
+
+  @Benchmark
+  public URI deresolve()
+  {
+    return absolute.deresolve(base);
+  }
+
+  /**
+   * Tries each registered prefix in turn, as a client without {@link URIPrefixMap} must, for comparison with {@link #replacePrefixMap()}.
+   */
+  @Benchmark
+  public URI replacePrefixLoop()
+  {
+    for (int i = 0; i < oldPrefixes.length; ++i)
+    {
+      URI result = absolute.replacePrefix(oldPrefixes[i], newPrefixes[i]);
+      if (result != null)
+      {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public URI replacePrefixMap()
+  {
+    return prefixMap.replacePrefix(absolute);
+  }
+
+  @Benchmark
+  public String uriToString()
+  {
+    return uri.toString();
+  }
+
+  @Benchmark
+  public String fragmentToString()
+  {
+    return uriWithFragment.toString();
+  }
+}
@@ -0,0 +1,277 @@
+package org.eclipse.emf.common.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures interning directly against the pools.
+ * <ul>
+ *   <li>A <em>hit</em> looks up a value that's already pooled and strongly held by the benchmark state.</li>
+ *   <li>A <em>miss</em> interns a value that has never been seen before, so it must be parsed and added.</li>
+ *   <li>A <em>cold</em> pool is a new empty {@link URIPool} for each iteration, so it also pays for rehashing as it grows.</li>
+ *   <li>A <em>warm</em> pool is pre-populated with {@link PopulatedPool#size} URIs.</li>
+ * </ul>
+ * The <code>Contended</code> variants run with as many threads as there are processors;
+ * use JMH's <code>-t</code> option to measure any other thread count.
+ */
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class URIPoolBenchmark
+{
+  /**
+   * The number of misses measured in each iteration of the single shot benchmarks.
+   */
+  static final int BATCH_SIZE = 10000;
+
+  /**
+   * Used to produce strings that have never been interned in any earlier iteration.
+   */
+  static final AtomicInteger GENERATION = new AtomicInteger();
+
+  static String uriString(String prefix, int i)
+  {
+    return "platform:/resource/" + prefix + "project" + (i % 97) + "/folder" + (i % 1013) + "/file" + i + ".xmi";
+  }
+
+  /**
+   * Returns the options for the given kind of table.
+   * Neither an {@link WeakInterningHashSet#OPEN_ADDRESSING open addressing} pool nor an {@link WeakInterningHashSet#INCREMENTAL_REHASH incrementally rehashed} pool is ever striped.
+   */
+  static int options(String table)
+  {
+    return
+      "openAddressing".equals(table) ?
+        WeakInterningHashSet.OPEN_ADDRESSING :
+        "incrementalRehash".equals(table) ? WeakInterningHashSet.INCREMENTAL_REHASH : 0;
+  }
+
+  @State(Scope.Benchmark)
+  public static class PopulatedPool
+  {
+    @Param({ "1000", "100000" })
+    int size;
+
+    /**
+     * A concurrency level greater than one creates a {@link Pool#isStriped() striped} pool.
+     */
+    @Param({ "1", "32" })
+    int concurrencyLevel;
+
+    /**
+     * The {@link #options(String) options} of the pool's table.
+     */
+    @Param({ "chained", "openAddressing", "incrementalRehash" })
+    String table;
+
+    URIPool pool;
+    String[] strings;
+    String[] segmentStrings;
+    URI[] uris;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+      pool = new URIPool(null, concurrencyLevel, options(table));
+      strings = new String[size];
+      segmentStrings = new String[size];
+      uris = new URI[size];
+      for (int i = 0; i < size; ++i)
+      {
+        // Use a copy so that the hit doesn't compare by identity against the cached string of the URI.
+        //
+        String string = uriString("warm", i);
+        uris[i] = pool.intern(string);
+        strings[i] = new String(string);
+        segmentStrings[i] = new String(CommonUtil.STRING_POOL.intern("file" + i + ".xmi"));
+      }
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class FreshPool
+  {
+    @Param({ "1", "32" })
+    int concurrencyLevel;
+
+    /**
+     * The {@link #options(String) options} of the pool's table.
+     */
+    @Param({ "chained", "openAddressing", "incrementalRehash" })
+    String table;
+
+    URIPool pool;
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+      pool = new URIPool(null, concurrencyLevel, options(table));
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Cursor
+  {
+    int index;
+  }
+
+  @State(Scope.Thread)
+  public static class MissStrings
+  {
+    String[] strings = new String[BATCH_SIZE];
+    int index;
+
+    @Setup(Level.Iteration)
+    public void setup()
+    {
+      String prefix = "g" + GENERATION.incrementAndGet() + "/";
+      for (int i = 0; i < BATCH_SIZE; ++i)
+      {
+        strings[i] = uriString(prefix, i);
+      }
+      index = 0;
+    }
+
+    String next()
+    {
+      return strings[index++];
+    }
+  }
+
+  static String next(String[] strings, Cursor cursor)
+  {
+    int index = cursor.index;
+    if (++index == strings.length)
+    {
+      index = 0;
+    }
+    cursor.index = index;
+    return strings[index];
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  public URI internHitWarm(PopulatedPool populatedPool, Cursor cursor)
+  {
+    return populatedPool.pool.intern(next(populatedPool.strings, cursor));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Threads(Threads.MAX)
+  public URI internHitWarmContended(PopulatedPool populatedPool, Cursor cursor)
+  {
+    return populatedPool.pool.intern(next(populatedPool.strings, cursor));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+  public URI internMissCold(FreshPool freshPool, MissStrings missStrings)
+  {
+    return freshPool.pool.intern(missStrings.next());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+  @Threads(Threads.MAX)
+  public URI internMissColdContended(FreshPool freshPool, MissStrings missStrings)
+  {
+    return freshPool.pool.intern(missStrings.next());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+  public URI internMissWarm(PopulatedPool populatedPool, MissStrings missStrings)
+  {
+    return populatedPool.pool.intern(missStrings.next());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+  @Threads(Threads.MAX)
+  public URI internMissWarmContended(PopulatedPool populatedPool, MissStrings missStrings)
+  {
+    return populatedPool.pool.intern(missStrings.next());
+  }
+
+  /**
+   * Interns all {@link #BATCH_SIZE} strings of an iteration as a single batch, for comparison with {@link #internMissCold(FreshPool, MissStrings)}.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public URI[] internBatchMissCold(FreshPool freshPool, MissStrings missStrings)
+  {
+    URI[] uris = new URI[BATCH_SIZE];
+    freshPool.pool.intern(missStrings.strings, uris);
+    return uris;
+  }
+
+  /**
+   * Interns all {@link PopulatedPool#size} strings as a single batch, for comparison with {@link #internHitWarm(PopulatedPool, Cursor)}.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  public URI[] internBatchHitWarm(PopulatedPool populatedPool)
+  {
+    URI[] uris = new URI[populatedPool.size];
+    populatedPool.pool.intern(populatedPool.strings, uris);
+    return uris;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  public String stringPoolInternHit(PopulatedPool populatedPool, Cursor cursor)
+  {
+    return CommonUtil.STRING_POOL.intern(next(populatedPool.segmentStrings, cursor));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @Warmup(iterations = 5, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  @Threads(Threads.MAX)
+  public String stringPoolInternHitContended(PopulatedPool populatedPool, Cursor cursor)
+  {
+    return CommonUtil.STRING_POOL.intern(next(populatedPool.segmentStrings, cursor));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+  @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+  public String stringPoolInternMiss(MissStrings missStrings)
+  {
+    return CommonUtil.STRING_POOL.intern(missStrings.next());
+  }
+}
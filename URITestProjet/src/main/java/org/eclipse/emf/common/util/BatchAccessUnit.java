@@ -0,0 +1,225 @@
+package org.eclipse.emf.common.util;
+
+import java.util.Arrays;
+
+/**
+ * An access unit for interning a batch of strings.
+ * The strings are looked up in the order of their index in the pool's entries, so that neighbouring lookups visit neighbouring parts of the table,
+ * the strings that aren't found are parsed without holding any lock, deferring the addition of each parsed URI,
+ * and then the {@link Pool#writeLock write lock} is acquired just once to add all of them.
+ */
+class BatchAccessUnit extends StringAccessUnit
+{
+  /**
+   * The strings being interned.
+   */
+  protected String[] strings;
+
+  /**
+   * The URIs interned for the {@link #strings}, populated as each string is processed.
+   */
+  protected URI[] uris;
+
+  /**
+   * The positions in the {@link #strings}, each combined with the index of its hash code in the pool's entries so that sorting orders them by index.
+   */
+  protected long[] order = new long[16];
+
+  /**
+   * The URIs that have been parsed but not yet added to the pool.
+   */
+  protected URI[] candidates = new URI[16];
+
+  /**
+   * The positions in the {@link #strings} of the {@link #candidates}.
+   */
+  protected int[] candidatePositions = new int[16];
+
+  /**
+   * The number of {@link #candidates}.
+   */
+  protected int candidateCount;
+
+  /**
+   * The URI created by the most recent {@link #internComponents(URIComponentsAccessUnit)} because no matching URI was found in the pool.
+   */
+  protected URI candidate;
+
+  /**
+   * Creates an instance managed by this queue and pool.
+   */
+  protected BatchAccessUnit(Queue<URI> queue, URIPool pool)
+  {
+    super(queue, pool);
+  }
+
+  /**
+   * Caches the parameters.
+   */
+  protected void setValue(String[] strings, URI[] uris)
+  {
+    this.strings = strings;
+    this.uris = uris;
+  }
+
+  /**
+   * Interns each of the {@link #strings}, storing the result in the corresponding position of the {@link #uris}.
+   */
+  protected void internAll()
+  {
+    String[] strings = this.strings;
+    URI[] uris = this.uris;
+    int length = strings.length;
+
+    // Order the positions by the index of their hash code in the table.
+    //
+    if (order.length < length)
+    {
+      order = new long[length];
+    }
+    long[] order = this.order;
+    int count = 0;
+    int capacity = pool.entries.length;
+    for (int i = 0; i < length; ++i)
+    {
+      String string = strings[i];
+      if (string != null)
+      {
+        order[count++] = (long)WeakInterningHashSet.index(string.hashCode(), capacity) << 32 | i;
+      }
+    }
+    Arrays.sort(order, 0, count);
+
+    int missCount = 0;
+    for (int i = 0; i < count; ++i)
+    {
+      int position = (int)order[i];
+      String string = strings[position];
+      int hashCode = string.hashCode();
+      URI uri = null;
+
+      // Look for a match without locking, as for a single string.
+      //
+      for (WeakInterningHashSet.Entry<URI> entry = pool.getEntry(hashCode); entry != null; entry = entry.getNextEntry())
+      {
+        URI entryURI = entry.get();
+        if (entryURI != null && entryURI.matches(string))
+        {
+          uri = entryURI;
+          pool.accessed(entry);
+          break;
+        }
+      }
+
+      if (uri == null)
+      {
+        // Parse without holding any lock.
+        // If the composed URI isn't already in the pool, it's recorded as a candidate to be added later.
+        //
+        ++missCount;
+        setValue(string, hashCode);
+        uri = parseIntoURI(string);
+        if (candidate != null)
+        {
+          addCandidate(position, candidate);
+          candidate = null;
+        }
+      }
+
+      uris[position] = uri;
+    }
+    value = null;
+
+    Pool.AccessCounters accessCounters = pool.getAccessCounters(this);
+    accessCounters.hits.add(count - missCount);
+    accessCounters.misses.add(missCount);
+
+    // Add all the candidates while holding the write lock just once.
+    // The double check in the addition resolves duplicates, including those within this batch.
+    //
+    if (candidateCount > 0)
+    {
+      URI[] candidates = this.candidates;
+      int[] candidatePositions = this.candidatePositions;
+      pool.lockWriteLock();
+      try
+      {
+        for (int i = 0, candidateCount = this.candidateCount; i < candidateCount; ++i)
+        {
+          URI candidate = candidates[i];
+          uriComponentsAccessUnit.setValue(candidate);
+          try
+          {
+            uris[candidatePositions[i]] = pool.addEntry(true, candidate, uriComponentsAccessUnit);
+          }
+          finally
+          {
+            uriComponentsAccessUnit.reset(true);
+          }
+        }
+      }
+      finally
+      {
+        pool.writeLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Records a URI to be added to the pool once all the strings are processed.
+   */
+  protected void addCandidate(int position, URI candidate)
+  {
+    int candidateCount = this.candidateCount;
+    if (candidateCount == candidates.length)
+    {
+      URI[] newCandidates = new URI[2 * candidateCount];
+      System.arraycopy(candidates, 0, newCandidates, 0, candidateCount);
+      candidates = newCandidates;
+      int[] newCandidatePositions = new int[2 * candidateCount];
+      System.arraycopy(candidatePositions, 0, newCandidatePositions, 0, candidateCount);
+      candidatePositions = newCandidatePositions;
+    }
+    candidates[candidateCount] = candidate;
+    candidatePositions[candidateCount] = position;
+    this.candidateCount = candidateCount + 1;
+  }
+
+  /**
+   * Looks for a matching URI without locking, and if there isn't one, creates a {@link #candidate} without adding it to the pool.
+   */
+  @Override
+  protected URI internComponents(URIComponentsAccessUnit accessUnit)
+  {
+    try
+    {
+      pool.access(false, accessUnit);
+      URI uri = accessUnit.match();
+      if (uri == null)
+      {
+        uri = candidate = accessUnit.getInternalizedValue();
+      }
+      else
+      {
+        pool.getAccessCounters(accessUnit).hits.increment();
+        pool.accessed(accessUnit.getEntry());
+      }
+      return uri;
+    }
+    finally
+    {
+      accessUnit.reset(false);
+    }
+  }
+
+  @Override
+  public void reset(boolean isExclusive)
+  {
+    strings = null;
+    uris = null;
+    candidate = null;
+    Arrays.fill(candidates, 0, candidateCount, null);
+    candidateCount = 0;
+    super.reset(isExclusive);
+  }
+}
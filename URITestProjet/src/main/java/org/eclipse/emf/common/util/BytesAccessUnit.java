@@ -0,0 +1,216 @@
+package org.eclipse.emf.common.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An access unit for UTF-8 encoded byte access.
+ * It decodes the bytes into a reusable character buffer, computing the same hash code as the decoded string would have,
+ * and then accesses those characters, so that a URI can be {@link URI#matches(CharSequence, int, int) matched} without creating a string.
+ */
+class BytesAccessUnit extends URICharactersAccessUnit
+{
+  /**
+   * The buffer for the decoded characters.
+   */
+  protected char[] decodedCharacters = new char[100];
+
+  /**
+   * The buffer for copying the bytes of a buffer that isn't backed by an array.
+   */
+  protected byte[] bytes = new byte[100];
+
+  /**
+   * The bytes being accessed.
+   */
+  protected byte[] value;
+
+  /**
+   * The offset of the bytes being accessed.
+   */
+  protected int valueOffset;
+
+  /**
+   * The number of bytes being accessed.
+   */
+  protected int valueLength;
+
+  /**
+   * Creates an instance managed by the given queue.
+   */
+  public BytesAccessUnit(Queue<URI> queue)
+  {
+    super(queue);
+  }
+
+  /**
+   * Caches the parameters, decodes the bytes, and computes the hash code.
+   * Returns <code>false</code> if the bytes are not well-formed UTF-8.
+   */
+  protected boolean setValue(byte[] value, int offset, int length)
+  {
+    this.value = value;
+    this.valueOffset = offset;
+    this.valueLength = length;
+
+    // There can be at most as many characters as bytes; a four byte sequence decodes to a surrogate pair.
+    //
+    char[] characters = decodedCharacters;
+    if (characters.length < length)
+    {
+      decodedCharacters = characters = new char[Math.max(length, 2 * characters.length)];
+    }
+
+    int hashCode = 0;
+    int count = 0;
+    for (int i = offset, end = offset + length; i < end; )
+    {
+      int b = value[i++];
+      if (b >= 0)
+      {
+        // The most common case by far is an ASCII character.
+        //
+        characters[count++] = (char)b;
+        hashCode = 31 * hashCode + b;
+      }
+      else if ((b & 0xE0) == 0xC0)
+      {
+        if (i >= end)
+        {
+          return false;
+        }
+        int b2 = value[i++];
+        if ((b2 & 0xC0) != 0x80)
+        {
+          return false;
+        }
+        int character = (b & 0x1F) << 6 | b2 & 0x3F;
+        if (character < 0x80)
+        {
+          return false;
+        }
+        characters[count++] = (char)character;
+        hashCode = 31 * hashCode + character;
+      }
+      else if ((b & 0xF0) == 0xE0)
+      {
+        if (i + 1 >= end)
+        {
+          return false;
+        }
+        int b2 = value[i++];
+        int b3 = value[i++];
+        if ((b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80)
+        {
+          return false;
+        }
+        int character = (b & 0x0F) << 12 | (b2 & 0x3F) << 6 | b3 & 0x3F;
+        if (character < 0x800 || character >= Character.MIN_SURROGATE && character <= Character.MAX_SURROGATE)
+        {
+          return false;
+        }
+        characters[count++] = (char)character;
+        hashCode = 31 * hashCode + character;
+      }
+      else if ((b & 0xF8) == 0xF0)
+      {
+        if (i + 2 >= end)
+        {
+          return false;
+        }
+        int b2 = value[i++];
+        int b3 = value[i++];
+        int b4 = value[i++];
+        if ((b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80 || (b4 & 0xC0) != 0x80)
+        {
+          return false;
+        }
+        int codePoint = (b & 0x07) << 18 | (b2 & 0x3F) << 12 | (b3 & 0x3F) << 6 | b4 & 0x3F;
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT || codePoint > Character.MAX_CODE_POINT)
+        {
+          return false;
+        }
+
+        // A supplementary character is a surrogate pair in the string, so both contribute to the hash code.
+        //
+        char highSurrogate = (char)((codePoint >>> 10) + (Character.MIN_HIGH_SURROGATE - (Character.MIN_SUPPLEMENTARY_CODE_POINT >>> 10)));
+        char lowSurrogate = (char)((codePoint & 0x3FF) + Character.MIN_LOW_SURROGATE);
+        characters[count++] = highSurrogate;
+        characters[count++] = lowSurrogate;
+        hashCode = 31 * (31 * hashCode + highSurrogate) + lowSurrogate;
+      }
+      else
+      {
+        return false;
+      }
+    }
+
+    this.characters = characters;
+    this.offset = 0;
+    this.count = count;
+    this.hashCode = hashCode;
+    return true;
+  }
+
+  /**
+   * Caches the remaining bytes of the buffer, without changing its position, decodes them, and computes the hash code.
+   * Returns <code>false</code> if the bytes are not well-formed UTF-8.
+   */
+  protected boolean setValue(ByteBuffer buffer)
+  {
+    int position = buffer.position();
+    int length = buffer.remaining();
+    if (buffer.hasArray())
+    {
+      return setValue(buffer.array(), buffer.arrayOffset() + position, length);
+    }
+    else
+    {
+      // Copy the bytes using absolute gets, which neither change the position nor require a duplicate buffer.
+      //
+      byte[] bytes = this.bytes;
+      if (bytes.length < length)
+      {
+        this.bytes = bytes = new byte[Math.max(length, 2 * bytes.length)];
+      }
+      for (int i = 0; i < length; ++i)
+      {
+        bytes[i] = buffer.get(position + i);
+      }
+      return setValue(bytes, 0, length);
+    }
+  }
+
+  /**
+   * Returns whether the ASCII bytes in the given range of the array are the same as the characters of the string.
+   */
+  protected static boolean matches(String string, byte[] bytes, int offset, int length)
+  {
+    if (string.length() != length)
+    {
+      return false;
+    }
+    for (int i = 0; i < length; ++i)
+    {
+      if (string.charAt(i) != bytes[offset + i])
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes the bytes being accessed as a string does, i.e., replacing malformed bytes with replacement characters.
+   */
+  protected String decode()
+  {
+    return new String(value, valueOffset, valueLength, URI.UTF_8);
+  }
+
+  @Override
+  public void reset(boolean isExclusive)
+  {
+    value = null;
+    super.reset(isExclusive);
+  }
+}
@@ -39,7 +39,10 @@ public final class CommonUtil
   }
 
   /**
-   * A reference queue monitored by a daemon thread that automatically calls {@link Reference#clear() clear} on each reference {@link ReferenceQueue#remove() removed} from the queue.
+   * A reference queue monitored by daemon threads that automatically call {@link Reference#clear() clear} on each reference {@link ReferenceQueue#remove() removed} from the queue.
+   * Each thread drains the queue in batches of up to <code>org.eclipse.emf.common.util.ReferenceClearingQueue.batchSize</code> references, 256 by default,
+   * which it {@link Pool#clear(Reference[], int) clears} with a single write lock acquisition per pool.
+   * There is one thread unless <code>org.eclipse.emf.common.util.ReferenceClearingQueue.threads</code> specifies more.
    */
   static final ReferenceQueue<Object>  REFERENCE_CLEARING_QUEUE;
 
@@ -48,7 +51,7 @@ public final class CommonUtil
     ReferenceQueue<Object> referenceClearingQueue = null;
     try
     {
-      // A daemon thread is created only if there is no security manager.
+      // Daemon threads are created only if there is no security manager.
       // The system property "org.eclipse.emf.common.util.ReferenceClearingQueue" can be used to override the default.
       //
       String hasReferenceClearingQueue = System.getProperty("org.eclipse.emf.common.util.ReferenceClearingQueue");
@@ -56,19 +59,33 @@ public final class CommonUtil
       {
         class ReferenceClearingQueuePollingThread extends Thread
         {
-          protected final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+          protected final ReferenceQueue<Object> queue;
+
+          protected final int batchSize;
+
+          public ReferenceClearingQueuePollingThread(ReferenceQueue<Object> queue, int batchSize)
+          {
+            this.queue = queue;
+            this.batchSize = batchSize;
+          }
 
           @Override
           public void run()
           {
             try
             {
-              // Call clear on each reference removed from the queue.
-              //
+              Reference<?>[] references = new Reference<?>[batchSize];
               for (;;)
               {
-                Reference<? extends Object> reference = queue.remove();
-                reference.clear();
+                // Wait for a reference and then take any others that are already enqueued, up to a full batch, and clear them all.
+                //
+                references[0] = queue.remove();
+                int count = 1;
+                for (Reference<?> reference; count < batchSize && (reference = queue.poll()) != null; )
+                {
+                  references[count++] = reference;
+                }
+                Pool.clear(references, count);
               }
             }
             catch (InterruptedException exception)
@@ -78,17 +95,23 @@ public final class CommonUtil
           }
         }
 
-        // Start the daemon thread.
+        // Start the daemon threads.
         //
-        ReferenceClearingQueuePollingThread referenceClearingQueuePollingThread = new ReferenceClearingQueuePollingThread();
-        referenceClearingQueuePollingThread.setDaemon(true);
-        referenceClearingQueuePollingThread.setName("EMF Reference Cleaner");
-        // referenceClearingQueuePollingThread.setPriority(Thread.MAX_PRIORITY);S
-        referenceClearingQueuePollingThread.start();
-        
-        // If we successfully started the thread, initialize the queue
+        ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+        int threadCount = Math.max(1, Pool.getIntegerProperty("ReferenceClearingQueue", "threads", 1));
+        int batchSize = Math.max(1, Pool.getIntegerProperty("ReferenceClearingQueue", "batchSize", 256));
+        for (int i = 0; i < threadCount; ++i)
+        {
+          ReferenceClearingQueuePollingThread referenceClearingQueuePollingThread = new ReferenceClearingQueuePollingThread(queue, batchSize);
+          referenceClearingQueuePollingThread.setDaemon(true);
+          referenceClearingQueuePollingThread.setName(i == 0 ? "EMF Reference Cleaner" : "EMF Reference Cleaner " + (i + 1));
+          // referenceClearingQueuePollingThread.setPriority(Thread.MAX_PRIORITY);S
+          referenceClearingQueuePollingThread.start();
+        }
+
+        // If we successfully started the threads, initialize the queue
         //
-        referenceClearingQueue = referenceClearingQueuePollingThread.queue;
+        referenceClearingQueue = queue;
       }
     }
     catch (Throwable throwable)
@@ -1162,7 +1185,8 @@ public final class CommonUtil
      */
     protected StringPool(ReferenceQueue<Object> queue)
     {
-      super(1031, null, queue);
+      super(getIntegerProperty("StringPool", "initialCapacity", 1031), null, queue, getIntegerProperty("StringPool", "concurrencyLevel", 1), getOptionsProperty("StringPool"), getLoadFactorProperty("StringPool"));
+      retentionPolicy = getRetentionPolicyProperty("StringPool");
 
       // Ensure that null is initially in the pool.
       //
@@ -1238,13 +1262,19 @@ public final class CommonUtil
         this.pool = pool;
       }
 
+      @Override
+      protected WeakInterningHashSet<String> getSet()
+      {
+        return pool;
+      }
+
       @Override
       public void clear()
       {
         // Gain exclusive write access and then clear the entry from the pool. 
         //
         StringPool pool = this.pool;
-        pool.writeLock.lock();
+        pool.lockWriteLock();
         try
         {
           clear(pool);
@@ -1268,6 +1298,11 @@ public final class CommonUtil
       return new SelfCleaningStringPoolEntry(this, object, hashCode, externalQueue);
     }
 
+    /**
+     * The counters for {@link #intern(String)}, which finds most values without using an access unit.
+     */
+    protected final AccessCounters stringAccessCounters = getAccessCounters(StringAccessUnit.class);
+
     @Override
     public String intern(String string)
     {
@@ -1289,22 +1324,23 @@ public final class CommonUtil
           {
             // Return that already present value.
             //
+            stringAccessCounters.hits.increment();
+            accessed(entry);
             return value;
           }
         }
 
-        writeLock.lock();
+        // Make the internalized copy without holding any lock; the write lock, or for a striped pool the stripe lock, is held only while adding the entry.
+        //
+        StringAccessUnit accessUnit = stringAccessUnits.pop(false);
+        accessUnit.setValue(string, hashCode);
         try
         {
-          StringAccessUnit accessUnit = stringAccessUnits.pop(true);
-          accessUnit.setValue(string, hashCode);
-          String result = addEntry(true, accessUnit.getInternalizedValue(), accessUnit);
-          accessUnit.reset(true);
-          return result;
+          return addEntry(false, accessUnit.getInternalizedValue(), accessUnit);
         }
         finally
         {
-          writeLock.unlock();
+          accessUnit.reset(false);
         }
       }
     }
@@ -17,10 +17,10 @@ import java.util.List;
      * The representation of the fragment.
      * The fragment is {@link #splitInternFragment(String) split interned}.
      */
-    protected CharSequence fragment;
+    protected final CharSequence fragment;
 
     /**
-     * Creates an instance from the components.
+     * Creates an instance from the components; only the {@link FragmentPool} creates instances.
      * Assertions are used to validate the integrity of the result.
      * I.e., the fragment must be non-null and {@link #splitInternFragment(String) split interned} and the hash code must be equal to the hash code of the {@link #toString()}.
      */
@@ -35,10 +35,9 @@ import java.util.List;
       //
       assert fragment != null;
 
-      // The hash code must be the same as that of the string representation,
-      // unless it's deferred.
+      // The hash code must be the same as that of the string representation.
       //
-      assert hashCode == 0 || hashCode == toString().hashCode();
+      assert hashCode == toString().hashCode();
     }
 
     @Override
@@ -227,6 +226,12 @@ import java.util.List;
       return uri.segmentsList();
     }
 
+    @Override
+    public List<String> decodedSegmentsList()
+    {
+      return uri.decodedSegmentsList();
+    }
+
     @Override
     public int segmentCount()
     {
@@ -265,9 +270,7 @@ import java.util.List;
 
     private URI appendFragment(URI uri)
     {
-      // If the hash code is 0 then it's highly likely we've deferred split interning the fragment, so don't use rawAppendFragment in that case.
-      //
-      return hashCode == 0 ? uri.appendFragment(fragment.toString()) : uri.rawAppendFragment(fragment);
+      return uri.rawAppendFragment(fragment);
     }
 
     @Override
@@ -286,10 +289,6 @@ import java.util.List;
     @Override
     public String fragment()
     {
-      if (hashCode == 0)
-      {
-        hashCode();
-      }
       return fragment.toString();
     }
 
@@ -335,29 +334,6 @@ import java.util.List;
       return CommonUtil.STRING_POOL.intern(result);
     }
 
-    /**
-     * If the hash code is <code>0</code> then most likely we've got a pending lazy {@link LazyFragmentInitializer}.
-     */
-    @Override
-    public int hashCode()
-    {
-      // Check if we have a deferred hash code initialization pending...
-      // Note there is the very remote possibility that the hash code could really be 0...
-      //
-      if (hashCode == 0)
-      {
-        hashCode = (uri.hashCode * 31 + FRAGMENT_SEPARATOR )* CommonUtil.powerOf31(fragment.length()) + fragment.hashCode();
-
-        // In that case, also split intern the fragment, but check if it's really a string, because otherwise it really must be split interned already.
-        //
-        if (fragment instanceof String)
-        {
-          fragment = splitInternFragment(fragment.toString());
-        }
-      }
-      return hashCode;
-    }
-
     @Override
     public boolean equals(Object object)
     {
@@ -371,10 +347,8 @@ import java.util.List;
         return false;
       }
 
-      // Be careful to accommodate the case of a deferred split interned fragment.
-      //
       Fragment that = (Fragment)object;
-      return uri == that.uri && (fragment == that.fragment || fragment.toString().equals(that.fragment().toString()));
+      return uri == that.uri && (fragment == that.fragment || fragment.toString().equals(that.fragment.toString()));
     }
 
     @Override
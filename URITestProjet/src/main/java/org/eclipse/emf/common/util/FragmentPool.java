@@ -0,0 +1,228 @@
+package org.eclipse.emf.common.util;
+
+import java.lang.ref.ReferenceQueue;
+
+/**
+ * A pool for caching URIs with a {@link URI#hasFragment() fragment}.
+ * Each is identified by its {@link URI#trimFragment() base} URI, which is itself pooled, and so is compared by identity,
+ * along with the characters of its fragment.
+ * So a URI with a fragment that's created repeatedly, e.g., for a cross-document reference such as <code>a.xmi#//@foo.1</code>,
+ * is the same instance each time, and is found without creating any objects.
+ */
+class FragmentPool extends Pool<Fragment>
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * An access unit for a base URI and the characters in a range of a sequence.
+   */
+  protected static class FragmentAccessUnit extends AccessUnit<Fragment>
+  {
+    protected static class Queue extends AccessUnit.Queue<Fragment>
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      public FragmentAccessUnit pop(boolean isExclusive)
+      {
+        return (FragmentAccessUnit)super.pop(isExclusive);
+      }
+
+      @Override
+      protected AccessUnit<Fragment> newAccessUnit()
+      {
+        return new FragmentAccessUnit(this);
+      }
+    }
+
+    /**
+     * The base URI being accessed.
+     */
+    protected URI base;
+
+    /**
+     * The characters of the fragment being accessed.
+     */
+    protected CharSequence characters;
+
+    /**
+     * The start of the fragment in the {@link #characters}.
+     */
+    protected int start;
+
+    /**
+     * The end of the fragment in the {@link #characters}.
+     */
+    protected int end;
+
+    /**
+     * Whether the {@link #characters} are the whole fragment and are already {@link URI#splitInternFragment(String) split interned}.
+     */
+    protected boolean isInterned;
+
+    /**
+     * Creates an instance managed by the given queue.
+     */
+    protected FragmentAccessUnit(Queue queue)
+    {
+      super(queue);
+    }
+
+    /**
+     * Caches the parameters.
+     */
+    protected void setValue(int hashCode, URI base, CharSequence characters, int start, int end, boolean isInterned)
+    {
+      this.hashCode = hashCode;
+      this.base = base;
+      this.characters = characters;
+      this.start = start;
+      this.end = end;
+      this.isInterned = isInterned;
+    }
+
+    @Override
+    protected Fragment getValue()
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void setValue(Fragment value)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected boolean setArbitraryValue(Object value)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected boolean matches(Fragment value)
+    {
+      return value.uri == base && FragmentPool.matches(value.fragment, characters, start, end);
+    }
+
+    @Override
+    public Fragment getInternalizedValue()
+    {
+      CharSequence fragment = isInterned ? characters : URI.splitInternFragment(characters.subSequence(start, end).toString());
+      return new Fragment(hashCode, base, fragment);
+    }
+
+    @Override
+    public void reset(boolean isExclusive)
+    {
+      base = null;
+      characters = null;
+      super.reset(isExclusive);
+    }
+  }
+
+  /**
+   * Access units for a base URI and the characters of a fragment.
+   */
+  protected final FragmentAccessUnit.Queue fragmentAccessUnits = new FragmentAccessUnit.Queue();
+
+  /**
+   * The counters for {@link #find(CharSequence, int, int, int, int)}, which finds values without using an access unit.
+   */
+  protected final AccessCounters charactersAccessCounters = getAccessCounters(CharSequence.class);
+
+  public FragmentPool(ReferenceQueue<Object> queue)
+  {
+    super(getIntegerProperty("FragmentPool", "initialCapacity", 1031), null, queue, getIntegerProperty("FragmentPool", "concurrencyLevel", 1), getOptionsProperty("FragmentPool"), getLoadFactorProperty("FragmentPool"));
+    retentionPolicy = getRetentionPolicyProperty("FragmentPool");
+  }
+
+  @Override
+  protected void releaseLocalAccessUnits()
+  {
+    super.releaseLocalAccessUnits();
+    fragmentAccessUnits.releaseLocalAccessUnits();
+  }
+
+  /**
+   * Returns the pooled URI for the characters in the given range of the sequence, which has its fragment separator at the given index and has the given hash code,
+   * or <code>null</code> if there isn't one.
+   * The URI is found without locking and without creating any objects, so it may spuriously fail to find a URI that's being added concurrently.
+   */
+  protected Fragment find(CharSequence uri, int start, int index, int end, int hashCode)
+  {
+    for (Entry<Fragment> entry = getEntry(hashCode); entry != null; entry = entry.getNextEntry())
+    {
+      Fragment fragment = entry.get();
+      if (fragment != null && matches(fragment.fragment, uri, index + 1, end) && fragment.uri.matches(uri, start, index))
+      {
+        charactersAccessCounters.hits.increment();
+        accessed(entry);
+        return fragment;
+      }
+    }
+    charactersAccessCounters.misses.increment();
+    return null;
+  }
+
+  /**
+   * Intern the URI composed of the base URI and the fragment in the given range of the sequence, where the composed URI has the given hash code.
+   */
+  protected Fragment intern(URI base, CharSequence characters, int start, int end, int hashCode)
+  {
+    FragmentAccessUnit accessUnit = fragmentAccessUnits.pop(false);
+    accessUnit.setValue(hashCode, base, characters, start, end, false);
+    return doIntern(false, accessUnit);
+  }
+
+  /**
+   * Intern the URI composed of the base URI and the fragment,
+   * which is already {@link URI#splitInternFragment(String) split interned} if <code>isInterned</code> is <code>true</code>.
+   */
+  protected Fragment intern(URI base, CharSequence fragment, boolean isInterned)
+  {
+    int length = fragment.length();
+    int hashCode = (base.hashCode() * 31 + URI.FRAGMENT_SEPARATOR) * CommonUtil.powerOf31(length) + fragment.hashCode();
+    FragmentAccessUnit accessUnit = fragmentAccessUnits.pop(false);
+    accessUnit.setValue(hashCode, base, fragment, 0, length, isInterned);
+    return doIntern(false, accessUnit);
+  }
+
+  /**
+   * Returns whether the fragment, which is either a string or a {@link SegmentSequence segment sequence}, has the same characters as the given range of the sequence.
+   * A segment sequence is compared segment by segment, so that it doesn't need to create its string.
+   */
+  protected static boolean matches(CharSequence fragment, CharSequence characters, int start, int end)
+  {
+    if (fragment instanceof SegmentSequence)
+    {
+      SegmentSequence segmentSequence = (SegmentSequence)fragment;
+      String delimiter = segmentSequence.delimiter;
+      String[] segments = segmentSequence.segments;
+      int index = start;
+      for (int i = 0, length = segments.length; i < length; ++i)
+      {
+        if (i != 0)
+        {
+          if (!URI.startsWith(characters, index, end, delimiter))
+          {
+            return false;
+          }
+          index += delimiter.length();
+        }
+        String segment = segments[i];
+        if (!URI.startsWith(characters, index, end, segment))
+        {
+          return false;
+        }
+        index += segment.length();
+      }
+      return index == end;
+    }
+    else
+    {
+      String string = fragment.toString();
+      return string.length() == end - start && URI.startsWith(characters, start, end, string);
+    }
+  }
+}
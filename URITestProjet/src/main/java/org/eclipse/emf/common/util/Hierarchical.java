@@ -106,6 +106,22 @@ import java.util.List;
      */
     protected WeakReference<String> toString;
 
+    /**
+     * A weakly cached reference to the {@link #decodedSegmentsList() decoded segments}.
+     * A reference whose value has been garbage collected is simply replaced the next time the value is computed.
+     */
+    protected WeakReference<List<String>> decodedSegments;
+
+    /**
+     * A weakly cached reference to the {@link #toFileString() file string}.
+     */
+    protected WeakReference<String> toFileString;
+
+    /**
+     * A weakly cached reference to the {@link #toPlatformString(boolean) decoded platform string}.
+     */
+    protected WeakReference<String> toDecodedPlatformString;
+
     /**
      * Creates an instance from the components, computing the {@link #flags} bits.
      * Assertions are used to validate the integrity of the result.
@@ -202,19 +218,19 @@ import java.util.List;
 
       // The scheme must be interned and must be lower cased.
       //
-      assert scheme.equals(CommonUtil.internToLowerCase(scheme));
+      assert scheme == CommonUtil.internToLowerCase(scheme);
 
       // The authority must be interned.
       //
-      assert authority.equals(CommonUtil.intern(authority));
+      assert authority == CommonUtil.intern(authority);
 
       // The query must be interned.
       //
-      assert query.equals(CommonUtil.intern(query));
+      assert query == CommonUtil.intern(query);
 
       // The device must be interned.
       //
-      assert device.equals(CommonUtil.intern(device));
+      assert device == CommonUtil.intern(device);
 
       // The components must be valid.
       //
@@ -348,12 +364,18 @@ import java.util.List;
     @Override
     protected boolean segmentsEqual(URI uri)
     {
+      // Segment arrays are interned, so the same segments are generally the same array.
+      //
       String[] segments = this.segments;
+      String[] otherSegments = uri.rawSegments();
+      if (segments == otherSegments) return true;
       int length = segments.length;
-      if (length != uri.segmentCount()) return false;
+      if (length != otherSegments.length) return false;
       for (int i = 0; i < length; i++)
       {
-        if (!(segments[i]).equals(uri.segment(i))) return false;
+        String segment = segments[i];
+        String otherSegment = otherSegments[i];
+        if (segment != otherSegment && !segment.equals(otherSegment)) return false;
       }
       return true;
     }
@@ -423,6 +445,42 @@ import java.util.List;
       return Collections.unmodifiableList(Arrays.asList(segments));
     }
 
+    @Override
+    public List<String> decodedSegmentsList()
+    {
+      WeakReference<List<String>> decodedSegments = this.decodedSegments;
+      if (decodedSegments != null)
+      {
+        List<String> result = decodedSegments.get();
+        if (result != null)
+        {
+          return result;
+        }
+      }
+
+      // The pooled segments are used directly unless at least one of them has an escape.
+      //
+      String[] segments = this.segments;
+      String[] decodedSegmentArray = segments;
+      for (int i = 0, len = segments.length; i < len; i++)
+      {
+        String segment = segments[i];
+        String decodedSegment = decode(segment);
+        if (decodedSegment != segment)
+        {
+          if (decodedSegmentArray == segments)
+          {
+            decodedSegmentArray = segments.clone();
+          }
+          decodedSegmentArray[i] = decodedSegment;
+        }
+      }
+
+      List<String> result = Collections.unmodifiableList(Arrays.asList(decodedSegmentArray));
+      this.decodedSegments = new WeakReference<List<String>>(result);
+      return result;
+    }
+
     @Override
     public int segmentCount()
     {
@@ -496,7 +554,7 @@ import java.util.List;
     @Override
     public URI appendQuery(String query)
     {
-      return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_QUERY, true, scheme, authority, device, hasAbsolutePath(), segments, query);
+      return pool().intern(false, URIComponentsAccessUnit.VALIDATE_QUERY, true, scheme, authority, device, hasAbsolutePath(), segments, query);
     }
 
     @Override
@@ -508,7 +566,7 @@ import java.util.List;
       }
       else
       {
-        return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, hasAbsolutePath(), segments, null);
+        return pool().intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, hasAbsolutePath(), segments, null);
       }
     }
 
@@ -523,6 +581,17 @@ import java.util.List;
       // an absolute URI needs no resolving
       if (!isRelative()) return this;
 
+      // The same relative URIs tend to be resolved against the same few base URIs, so the results are cached by identity.
+      // Each context has its own cache, because the result is interned in the context's pool.
+      //
+      int options = preserveRootParents ? 1 : 0;
+      URIPairCache resolveCache = resolveCache();
+      URI result = resolveCache.get(this, base, options);
+      if (result != null)
+      {
+        return result;
+      }
+
       String newAuthority = authority;
       String newDevice = device;
       boolean newAbsolutePath = hasAbsolutePath();
@@ -562,7 +631,9 @@ import java.util.List;
       // else keep authority, device, path, and query
 
       // Use scheme from base; no validation needed because all components are from existing URIs
-      return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, base.scheme(), newAuthority, newDevice, newAbsolutePath, newSegments, newQuery);
+      result = pool().intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, base.scheme(), newAuthority, newDevice, newAbsolutePath, newSegments, newQuery);
+      resolveCache.put(this, base, options, result);
+      return result;
     }
 
     // Merges this URI's relative path with the base non-relative path.
@@ -579,73 +650,73 @@ import java.util.List;
         throw new IllegalStateException("merge non-relative path");
       }
 
-      int baseSegmentCount = base.segmentCount();
+      String[] baseSegments = base.rawSegments();
+      int baseSegmentCount = baseSegments.length;
+      String[] segments = this.segments;
       int segmentCount = segments.length;
-      String[] stack = new String[baseSegmentCount + segmentCount];
-      int sp = 0;
 
-      // use a stack to accumulate segments of base, except for the last
+      // use a reusable stack, which maintains the hash code of its segments, to accumulate segments of base, except for the last
       // (i.e. skip trailing separator and anything following it), and of relative path
       //
+      SegmentSequence.StringArrayPool.SegmentsStackAccessUnit stack = SegmentSequence.STRING_ARRAY_POOL.getSegmentsStack(baseSegmentCount + segmentCount);
       for (int i = 0; i < baseSegmentCount - 1; i++)
       {
-        sp = accumulate(stack, sp, base.segment(i), preserveRootParents);
+        accumulate(stack, baseSegments[i], preserveRootParents);
       }
 
       for (int i = 0; i < segmentCount; i++)
       {
-        sp = accumulate(stack, sp, segments[i], preserveRootParents);
+        accumulate(stack, segments[i], preserveRootParents);
       }
 
       // if the relative path is empty or ends in an empty segment, a parent
       // reference, or a self reference, add a trailing separator to a
       // non-empty path
-      if (sp > 0)
+      if (stack.size() > 0)
       {
         if (segmentCount == 0)
         {
-          stack[sp++] = SEGMENT_EMPTY;
+          stack.push(SEGMENT_EMPTY);
         }
         else
         {
           String segment = segments[segmentCount - 1];
           if (segment.equals(SEGMENT_EMPTY)  || segment.equals(SEGMENT_PARENT) || segment.equals(SEGMENT_SELF))
           {
-            stack[sp++] = SEGMENT_EMPTY;
+            stack.push(SEGMENT_EMPTY);
           }
         }
       }
 
-      // return a correctly sized result
-      return SegmentSequence.STRING_ARRAY_POOL.intern(stack, 0, sp);
+      // return a correctly sized result, which is the pooled array if there is one
+      return SegmentSequence.STRING_ARRAY_POOL.intern(stack);
     }
 
     // Adds a segment to a stack, skipping empty segments and self references,
     // and interpreting parent references.
-    protected static int accumulate(String[] stack, int sp, String segment, boolean preserveRootParents)
+    protected static void accumulate(SegmentSequence.StringArrayPool.SegmentsStackAccessUnit stack, String segment, boolean preserveRootParents)
     {
       if (SEGMENT_PARENT == segment)
       {
-        if (sp == 0)
+        if (stack.size() == 0)
         {
           // special care must be taken for a root's parent reference: it is
           // either ignored or the symbolic reference itself is pushed
-          if (preserveRootParents) stack[sp++] = segment;
+          if (preserveRootParents) stack.push(segment);
         }
         else
         {
           // unless we're already accumulating root parent references,
           // parent references simply pop the last segment descended
-          if (SEGMENT_PARENT == stack[sp - 1]) stack[sp++] = segment;
-          else sp--;
+          if (SEGMENT_PARENT == stack.peek()) stack.push(segment);
+          else stack.pop();
         }
       }
       else if (!SEGMENT_EMPTY.equals(segment) && !SEGMENT_SELF.equals(segment))
       {
         // skip empty segments and self references; push everything else
-        stack[sp++] = segment;
+        stack.push(segment);
       }
-      return sp;
     }
 
     @Override
@@ -659,6 +730,17 @@ import java.util.List;
       // different scheme: need complete, absolute URI
       if (scheme != base.scheme()) return this;
 
+      // The same URIs tend to be deresolved against the same few base URIs, e.g., for each cross-reference when saving, so the results are cached by identity.
+      // Each context has its own cache, because the result is interned in the context's pool.
+      //
+      int options = (preserveRootParents ? 1 : 0) | (anyRelPath ? 2 : 0) | (shorterRelPath ? 4 : 0);
+      URIPairCache deresolveCache = deresolveCache();
+      URI result = deresolveCache.get(this, base, options);
+      if (result != null)
+      {
+        return result;
+      }
+
       String newAuthority = authority;
       String newDevice = device;
       boolean newAbsolutePath = hasAbsolutePath();
@@ -729,7 +811,9 @@ import java.util.List;
 
       // always include fragment, even if null;
       // no validation needed since all components are from existing URIs
-      return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, null, newAuthority, newDevice, newAbsolutePath, newSegments, newQuery);
+      result = pool().intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, null, newAuthority, newDevice, newAbsolutePath, newSegments, newQuery);
+      deresolveCache.put(this, base, options, result);
+      return result;
     }
 
     // Returns true if the non-relative path includes segments that would be
@@ -792,9 +876,23 @@ import java.util.List;
       // last segment removed, all preceding segments can be considered non-
       // empty and followed by a separator, while the last segment of endPath
       // will either be non-empty and not followed by a separator, or just empty
-      for (int count = startCount < endCount ? startCount : endCount - 1; diff < count && startPath[diff].equals(endPath[diff]); diff++)
+      int count = startCount < endCount ? startCount : endCount - 1;
+      if (startPath == endPath)
+      {
+        // The interned arrays are the same, so all the compared segments are too.
+        //
+        diff = Math.max(count, 0);
+      }
+      else
       {
-        // Empty statement.
+        // Segments are interned, so they're compared by identity before by value.
+        //
+        for (; diff < count; diff++)
+        {
+          String startSegment = startPath[diff];
+          String endSegment = endPath[diff];
+          if (startSegment != endSegment && !startSegment.equals(endSegment)) break;
+        }
       }
 
       int upCount = startCount - diff;
@@ -833,30 +931,28 @@ import java.util.List;
 
       if (!hasCollapsableSegments(preserveRootParents)) return rawSegments();
 
-      // use a stack to accumulate segments
+      // use a reusable stack to accumulate segments
       String[] segments = this.segments;
       int segmentCount = segments.length;
-      String[] stack = new String[segmentCount];
-      int sp = 0;
-
+      SegmentSequence.StringArrayPool.SegmentsStackAccessUnit stack = SegmentSequence.STRING_ARRAY_POOL.getSegmentsStack(segmentCount);
       for (int i = 0; i < segmentCount; i++)
       {
-        sp = accumulate(stack, sp, segments[i], preserveRootParents);
+        accumulate(stack, segments[i], preserveRootParents);
       }
 
       // if the path is non-empty and originally ended in an empty segment, a
       // parent reference, or a self reference, add a trailing separator
-      if (sp > 0)
+      if (stack.size() > 0)
       {
         String segment = segments[segmentCount - 1];
         if (segment.equals(SEGMENT_EMPTY) || segment.equals(SEGMENT_PARENT)|| segment.equals(SEGMENT_SELF))
         {
-          stack[sp++] = SEGMENT_EMPTY;
+          stack.push(SEGMENT_EMPTY);
         }
       }
 
-      // return a correctly sized result
-      return SegmentSequence.STRING_ARRAY_POOL.intern(stack, 0, sp);
+      // return a correctly sized result, which is the pooled array if there is one
+      return SegmentSequence.STRING_ARRAY_POOL.intern(stack);
     }
 
     @Override
@@ -939,25 +1035,23 @@ import java.util.List;
     }
 
     @Override
-    protected boolean matches(String string)
+    protected boolean matches(CharSequence characters, int start, int end)
     {
       String cachedString = getCachedString();
       if (cachedString != null)
       {
-        return cachedString.equals(string);
+        return cachedString.length() == end - start && startsWith(characters, start, end, cachedString);
       }
 
-      int length = string.length();
-
-      int index = 0;
+      int index = start;
       if (!isRelative())
       {
-        if (!string.startsWith(scheme))
+        if (!startsWith(characters, index, end, scheme))
         {
           return false;
         }
         index += scheme.length();
-        if (index >= length || string.charAt(index) != SCHEME_SEPARATOR)
+        if (index >= end || characters.charAt(index) != SCHEME_SEPARATOR)
         {
           return false;
         }
@@ -968,13 +1062,13 @@ import java.util.List;
       {
         if (!isArchive())
         {
-          if (!string.startsWith(AUTHORITY_SEPARATOR, index))
+          if (!startsWith(characters, index, end, AUTHORITY_SEPARATOR))
           {
             return false;
           }
           index += 2;
         }
-        if (!string.startsWith(authority, index))
+        if (!startsWith(characters, index, end, authority))
         {
           return false;
         }
@@ -983,12 +1077,12 @@ import java.util.List;
 
       if (hasDevice())
       {
-        if (index >= length || string.charAt(index) != SEGMENT_SEPARATOR)
+        if (index >= end || characters.charAt(index) != SEGMENT_SEPARATOR)
         {
           return false;
         }
         ++index;
-        if (!string.startsWith(device, index))
+        if (!startsWith(characters, index, end, device))
         {
           return false;
         }
@@ -997,7 +1091,7 @@ import java.util.List;
 
       if (hasAbsolutePath())
       {
-        if (index >= length || string.charAt(index) != SEGMENT_SEPARATOR)
+        if (index >= end || characters.charAt(index) != SEGMENT_SEPARATOR)
         {
           return false;
         }
@@ -1009,14 +1103,14 @@ import java.util.List;
       {
         if (i != 0)
         {
-          if (index >= length || string.charAt(index) != SEGMENT_SEPARATOR)
+          if (index >= end || characters.charAt(index) != SEGMENT_SEPARATOR)
           {
             return false;
           }
           ++index;
         }
         String segment = segments[i];
-        if (!string.startsWith(segment, index))
+        if (!startsWith(characters, index, end, segment))
         {
           return false;
         }
@@ -1025,19 +1119,19 @@ import java.util.List;
 
       if (hasQuery())
       {
-        if (index >= length || string.charAt(index) != QUERY_SEPARATOR)
+        if (index >= end || characters.charAt(index) != QUERY_SEPARATOR)
         {
           return false;
         }
         ++index;
-        if (!string.startsWith(query, index))
+        if (!startsWith(characters, index, end, query))
         {
           return false;
         }
         index += query.length();
       }
 
-      return index == length;
+      return index == end;
     }
 
     @Override
@@ -1046,9 +1140,9 @@ import java.util.List;
       return
         hierarchical &&
           hasAbsolutePath() == absolutePath &&
-          validate >= URIComponentsAccessUnit.VALIDATE_NONE ?
-             this.segments == segments && this.scheme.equals(scheme) && this.authority.equals(authority) && this.device.equals(device) && this.query.equals(query) :
-             Arrays.equals(this.segments, segments) && equals(this.scheme, scheme) && equals(this.authority, authority) && equals(this.device, device) && equals(this.query, query);
+          (validate >= URIComponentsAccessUnit.VALIDATE_NONE ?
+             this.segments == segments && this.scheme == scheme && this.authority == authority && this.device == device && this.query == query :
+             Arrays.equals(this.segments, segments) && equals(this.scheme, scheme) && equals(this.authority, authority) && equals(this.device, device) && equals(this.query, query));
     }
 
     @Override
@@ -1086,6 +1180,16 @@ import java.util.List;
     {
       if (!isFile()) return null;
 
+      WeakReference<String> toFileString = this.toFileString;
+      if (toFileString != null)
+      {
+        String cachedFileString = toFileString.get();
+        if (cachedFileString != null)
+        {
+          return cachedFileString;
+        }
+      }
+
       CommonUtil.StringPool.StringsAccessUnit result = CommonUtil.STRING_POOL.getStringBuilder();
       char separator = File.separatorChar;
       boolean hasDevice = hasDevice();
@@ -1108,7 +1212,9 @@ import java.util.List;
         result.append(segments[i]);
       }
 
-      return decode(CommonUtil.STRING_POOL.intern(result));
+      String fileString = decode(CommonUtil.STRING_POOL.intern(result));
+      this.toFileString = new WeakReference<String>(fileString);
+      return fileString;
     }
 
     @Override
@@ -1116,14 +1222,44 @@ import java.util.List;
     {
       if (isPlatform())
       {
+        if (decode)
+        {
+          WeakReference<String> toDecodedPlatformString = this.toDecodedPlatformString;
+          if (toDecodedPlatformString != null)
+          {
+            String cachedPlatformString = toDecodedPlatformString.get();
+            if (cachedPlatformString != null)
+            {
+              return cachedPlatformString;
+            }
+          }
+        }
+
         CommonUtil.StringPool.StringsAccessUnit result = CommonUtil.STRING_POOL.getStringBuilder();
-        String[] segments = this.segments;
-        for (int i = 1, len = segments.length; i < len; i++)
+        if (decode)
+        {
+          List<String> decodedSegments = decodedSegmentsList();
+          for (int i = 1, len = decodedSegments.size(); i < len; i++)
+          {
+            result.append('/');
+            result.append(decodedSegments.get(i));
+          }
+        }
+        else
+        {
+          String[] segments = this.segments;
+          for (int i = 1, len = segments.length; i < len; i++)
+          {
+            result.append('/');
+            result.append(segments[i]);
+          }
+        }
+        String platformString = CommonUtil.STRING_POOL.intern(result);
+        if (decode)
         {
-          result.append('/');
-          result.append(decode ? URI.decode(segments[i]) : segments[i]);
+          this.toDecodedPlatformString = new WeakReference<String>(platformString);
         }
-        return CommonUtil.STRING_POOL.intern(result);
+        return platformString;
       }
       return null;
     }
@@ -1170,7 +1306,7 @@ import java.util.List;
         newSegments = SegmentSequence.STRING_ARRAY_POOL.intern(segments, segments.length, segment, true);
       }
 
-      return POOL.intern(false, segments.length, true, scheme, authority, newDevice, newAbsolutePath, newSegments, query);
+      return pool().intern(false, segments.length, true, scheme, authority, newDevice, newAbsolutePath, newSegments, query);
     }
 
     @Override
@@ -1207,7 +1343,7 @@ import java.util.List;
       boolean newAbsolutePath = !hasRelativePath();
 
       String[] newSegments = SegmentSequence.STRING_ARRAY_POOL.intern(this.segments, segments, true);
-      return POOL.intern(false, this.segments.length, true, scheme, authority, device, newAbsolutePath, newSegments, query);
+      return pool().intern(false, this.segments.length, true, scheme, authority, device, newAbsolutePath, newSegments, query);
     }
 
     @Override
@@ -1226,7 +1362,7 @@ import java.util.List;
         newSegments = NO_SEGMENTS;
       }
 
-      return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, hasAbsolutePath(), newSegments, query);
+      return pool().intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, hasAbsolutePath(), newSegments, query);
     }
 
     @Override
@@ -1283,7 +1419,7 @@ import java.util.List;
       String[] newSegments = SegmentSequence.STRING_ARRAY_POOL.intern(segments, segments.length - 1, CommonUtil.STRING_POOL.intern(newLastSegment), false);
 
       // note: segments.length > 0 -> hierarchical
-      return POOL.intern(false, len, true, scheme, authority, device, hasAbsolutePath(), newSegments, query);
+      return pool().intern(false, len, true, scheme, authority, device, hasAbsolutePath(), newSegments, query);
     }
 
     @Override
@@ -1300,7 +1436,7 @@ import java.util.List;
       String[] newSegments = SegmentSequence.STRING_ARRAY_POOL.intern(segments, len - 1, newLastSegment, true);
 
       // note: segments.length > 0 -> hierarchical
-      return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, hasAbsolutePath(), newSegments, query);
+      return pool().intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, hasAbsolutePath(), newSegments, query);
     }
 
     @Override
@@ -1380,6 +1516,6 @@ import java.util.List;
       }
 
       // no validation needed since all components are from existing URIs
-      return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, newPrefix.scheme(), newPrefix.authority(), newPrefix.device(), newPrefix.hasAbsolutePath(), mergedSegments, query);
+      return pool().intern(false, URIComponentsAccessUnit.VALIDATE_NONE, true, newPrefix.scheme(), newPrefix.authority(), newPrefix.device(), newPrefix.hasAbsolutePath(), mergedSegments, query);
     }
   }
\ No newline at end of file
@@ -40,7 +40,7 @@ import java.lang.ref.WeakReference;
 
       // The authority must be interned.
       //
-      assert opaquePart.equals(CommonUtil.intern(opaquePart));
+      assert opaquePart == CommonUtil.intern(opaquePart);
 
       // The components must be valid.
       //
@@ -120,35 +120,34 @@ import java.lang.ref.WeakReference;
     }
 
     @Override
-    protected boolean matches(String string)
+    protected boolean matches(CharSequence characters, int start, int end)
     {
       String cachedString = getCachedString();
       if (cachedString != null)
       {
-        return cachedString.equals(string);
+        return cachedString.length() == end - start && startsWith(characters, start, end, cachedString);
       }
 
-      int index = 0;
-      if (!string.startsWith(scheme))
+      int index = start;
+      if (!startsWith(characters, index, end, scheme))
       {
         return false;
       }
 
-      int length = string.length();
       index += scheme.length();
-      if (index >= length || string.charAt(index) != SCHEME_SEPARATOR)
+      if (index >= end || characters.charAt(index) != SCHEME_SEPARATOR)
       {
         return false;
       }
       ++index;
 
-      if (!string.startsWith(opaquePart, index))
+      if (!startsWith(characters, index, end, opaquePart))
       {
         return false;
       }
       index += opaquePart.length();
 
-      return index == length;
+      return index == end;
     }
 
     @Override
@@ -159,8 +158,8 @@ import java.lang.ref.WeakReference;
           !absolutePath &&
           segments == null &&
           query == null &&
-          validate >= URIComponentsAccessUnit.VALIDATE_NONE ?
-             this.scheme.equals(scheme) && this.opaquePart.equals(authority) :
-             equals(this.scheme, scheme) && equals(this.opaquePart, authority);
+          (validate >= URIComponentsAccessUnit.VALIDATE_NONE ?
+             this.scheme == scheme && this.opaquePart == authority :
+             equals(this.scheme, scheme) && equals(this.opaquePart, authority));
     }
   }
\ No newline at end of file
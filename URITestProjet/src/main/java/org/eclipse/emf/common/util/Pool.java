@@ -7,13 +7,19 @@
  */
 package org.eclipse.emf.common.util;
 
+import java.io.Serializable;
+import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -21,6 +27,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * All access is thread safe, guarded with a shared {@link #getReadLock() read} lock and an exclusive {@link #getWriteLock()} lock
  * to support multiple simultaneous readers while ensuring that writes are properly serial.
  * The locks are held for the minimal period to allow maximal concurrency.
+ * A pool created with a {@link #Pool(int, AccessUnit.Queue, ReferenceQueue, int) concurrency level} greater than one is <em>striped</em>:
+ * additions hold the shared read lock and one of several stripe locks, each guarding a subset of the {@link #entries} indices,
+ * so that additions to different indices proceed concurrently;
+ * only rehashing and garbage collection cleanup hold the exclusive write lock.
  * Removals, i.e., {@link #remove(Object) remove}, {@link #removeAll(Collection) removeAll}, {@link #clear() clear}, and {@link #retainAll(Collection) retainAll}, are not supported.
  * 
  * @since 2.9
@@ -72,6 +82,47 @@ public class Pool<E> extends WeakInterningHashSet<E>
 
       protected AccessUnit<E> exclusiveAccessUnit;
 
+      /**
+       * The maximum number of access units that each thread caches for each queue,
+       * specified by the <code>localAccessUnits</code> system property, read like those of {@link Pool#getIntegerProperty(String, String, int)}.
+       * A capacity of zero disables thread local caching, so that all threads share the queue's stack.
+       */
+      protected static final int LOCAL_CAPACITY = getIntegerProperty("AccessUnit", "localAccessUnits", 4);
+
+      /**
+       * A thread's cache of access units, chained via their {@link AccessUnit#next} link.
+       */
+      protected static final class LocalAccessUnits<E>
+      {
+        /**
+         * The most recently pushed access unit.
+         */
+        protected AccessUnit<E> head;
+
+        /**
+         * The number of cached access units.
+         */
+        protected int size;
+      }
+
+      /**
+       * Each thread's cache of access units.
+       * A non-exclusive {@link #pop(boolean) pop} takes from the calling thread's cache before falling back to the shared stack,
+       * and a non-exclusive {@link #push(AccessUnit, boolean) push} returns to it until it holds {@link #LOCAL_CAPACITY} access units,
+       * overflowing into the shared stack beyond that.
+       * So in the common case, where a thread returns each access unit it uses, no memory is shared with other threads,
+       * and concurrent threads don't contend for the shared stack's {@link #GUARD}.
+       * <p>
+       * Each thread's cache is referenced only weakly.
+       * The cached access units reference this queue, and typically its pool,
+       * so a strongly referenced cache would keep this thread local's entry in the thread's map from ever going stale,
+       * and would keep a discarded pool reachable for as long as any thread that accessed it lives.
+       * A cache that's garbage collected is simply created again.
+       * </p>
+       */
+      protected final transient ThreadLocal<WeakReference<LocalAccessUnits<E>>> localAccessUnits =
+        LOCAL_CAPACITY <= 0 ? null : new ThreadLocal<WeakReference<LocalAccessUnits<E>>>();
+
       public AccessUnit<E> pop(boolean isExclusive)
       {
         if (isExclusive)
@@ -90,6 +141,18 @@ public class Pool<E> extends WeakInterningHashSet<E>
         }
         else
         {
+          LocalAccessUnits<E> localAccessUnits = getLocalAccessUnits();
+          if (localAccessUnits != null)
+          {
+            AccessUnit<E> accessUnit = localAccessUnits.head;
+            if (accessUnit != null)
+            {
+              localAccessUnits.head = accessUnit.next;
+              --localAccessUnits.size;
+              return accessUnit;
+            }
+          }
+
           for (;;)
           {
             AccessUnit<E> accessUnit = get();
@@ -115,6 +178,15 @@ public class Pool<E> extends WeakInterningHashSet<E>
         }
         else
         {
+          LocalAccessUnits<E> localAccessUnits = getLocalAccessUnits();
+          if (localAccessUnits != null && localAccessUnits.size < LOCAL_CAPACITY)
+          {
+            accessUnit.next = localAccessUnits.head;
+            localAccessUnits.head = accessUnit;
+            ++localAccessUnits.size;
+            return;
+          }
+
           for (;;)
           {
             AccessUnit<E> headAccessUnit = accessUnit.next = get();
@@ -126,6 +198,41 @@ public class Pool<E> extends WeakInterningHashSet<E>
         }
       }
 
+      /**
+       * Returns the calling thread's cache of access units, or <code>null</code> if thread local caching is disabled.
+       */
+      protected LocalAccessUnits<E> getLocalAccessUnits()
+      {
+        ThreadLocal<WeakReference<LocalAccessUnits<E>>> localAccessUnits = this.localAccessUnits;
+        if (localAccessUnits == null)
+        {
+          return null;
+        }
+        else
+        {
+          WeakReference<LocalAccessUnits<E>> reference = localAccessUnits.get();
+          LocalAccessUnits<E> result = reference == null ? null : reference.get();
+          if (result == null)
+          {
+            result = new LocalAccessUnits<E>();
+            localAccessUnits.set(new WeakReference<LocalAccessUnits<E>>(result));
+          }
+          return result;
+        }
+      }
+
+      /**
+       * Discards the calling thread's cache of access units.
+       */
+      protected void releaseLocalAccessUnits()
+      {
+        ThreadLocal<WeakReference<LocalAccessUnits<E>>> localAccessUnits = this.localAccessUnits;
+        if (localAccessUnits != null)
+        {
+          localAccessUnits.remove();
+        }
+      }
+
       protected abstract AccessUnit<E> newAccessUnit();
     }
 
@@ -158,6 +265,16 @@ public class Pool<E> extends WeakInterningHashSet<E>
 
     protected Entry<E> createdEntry;
 
+    /**
+     * The pool for which the {@link #accessCounters} were most recently {@link Pool#getAccessCounters(AccessUnit) retrieved}.
+     */
+    protected Pool<E> accessCountersPool;
+
+    /**
+     * The counters for this type of access unit's accesses to the {@link #accessCountersPool}.
+     */
+    protected AccessCounters accessCounters;
+
     @SuppressWarnings("unchecked")
     protected Entry<E>[] entries = new Entry[10];
 
@@ -399,6 +516,11 @@ public class Pool<E> extends WeakInterningHashSet<E>
    */
   protected int cleanupPeriod = 1000;
 
+  /**
+   * The policy for retaining the values of this pool more than weakly, or <code>null</code> if they're referenced only weakly.
+   */
+  protected RetentionPolicy retentionPolicy;
+
   protected final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
   /**
@@ -413,6 +535,123 @@ public class Pool<E> extends WeakInterningHashSet<E>
 
   protected final AccessUnit.Queue<E> primaryAccessUnits;
 
+  /**
+   * The spacing between the counts in the {@link #stripeAdditions} so that the counts of different stripes don't share a cache line.
+   */
+  protected static final int STRIPE_PADDING = 16;
+
+  /**
+   * The locks guarding additions to the {@link #entries} of a {@link #isStriped() striped} pool, or <code>null</code> if the pool isn't striped.
+   * The length is a power of two and the lock at <code>index & (stripeLocks.length - 1)</code> guards the entries at that index.
+   * A stripe lock is only ever acquired while holding the {@link #readLock read lock}, so holding the {@link #writeLock write lock} excludes all of them.
+   */
+  protected final Lock[] stripeLocks;
+
+  /**
+   * The number of entries added while holding each of the {@link #stripeLocks} that are not yet accounted for in the {@link #size}.
+   * The count for stripe <code>i</code> is at index <code>i * {@link #STRIPE_PADDING}</code>;
+   * it's only modified while holding that stripe's lock and is {@link #foldStripeAdditions() folded} into the size while holding the {@link #writeLock write lock}.
+   */
+  protected final int[] stripeAdditions;
+
+  /**
+   * The number of additions a single stripe may accumulate before the size must be {@link #foldStripeAdditions() folded} and the {@link #ensureCapacity() capacity checked}.
+   */
+  protected int stripeThreshold;
+
+  /**
+   * A counter that's cheap to increment from many threads simultaneously.
+   * The count is spread over cells, chosen by the {@link Thread#getId() ID} of the incrementing thread and each on its own cache line,
+   * that are summed only when the count is {@link #get() read}.
+   */
+  protected static final class Counter implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The spacing between the cells so that different cells don't share a cache line.
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * The number of cells, a power of two that's at least twice the number of processors, but at most 32.
+     */
+    private static final int CELL_COUNT = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 2, 32);
+
+    private final AtomicLongArray cells = new AtomicLongArray(CELL_COUNT * PADDING);
+
+    public void increment()
+    {
+      add(1);
+    }
+
+    public void add(long delta)
+    {
+      cells.getAndAdd(((int)Thread.currentThread().getId() & (CELL_COUNT - 1)) * PADDING, delta);
+    }
+
+    public long get()
+    {
+      long result = 0;
+      for (int i = 0, length = cells.length(); i < length; i += PADDING)
+      {
+        result += cells.get(i);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The {@link Counter counters} for the accesses to the pool by one type of access unit.
+   */
+  protected static final class AccessCounters implements Serializable
+  {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of accesses that found the value already in the pool.
+     */
+    public final Counter hits = new Counter();
+
+    /**
+     * The number of accesses that didn't find the value in the pool.
+     */
+    public final Counter misses = new Counter();
+  }
+
+  /**
+   * The {@link AccessCounters access counters} for each type of access unit, keyed by the {@link #getAccessUnitType(Class) name} of that type.
+   */
+  protected final ConcurrentMap<String, AccessCounters> accessCounters = new ConcurrentHashMap<String, AccessCounters>();
+
+  /**
+   * The number of times {@link #cleanup()} has been called.
+   * It's only modified while holding the {@link #writeLock write lock}.
+   */
+  protected long cleanupCount;
+
+  /**
+   * The number of times the {@link #writeLock write lock} was {@link #lockWriteLock() acquired} only after waiting for another thread to release it.
+   * It's only modified while holding the write lock.
+   */
+  protected long writeLockWaitCount;
+
+  /**
+   * The total time, in nanoseconds, spent waiting to {@link #lockWriteLock() acquire} the {@link #writeLock write lock}.
+   * It's only modified while holding the write lock.
+   */
+  protected long writeLockWaitTime;
+
+  /**
+   * The maximum number of entries, or 0 if the pool is unbounded.
+   */
+  protected int maximumSize;
+
+  /**
+   * The number of additions {@link #checkMaximumSize() rejected} because the pool had reached its {@link #maximumSize maximum size}.
+   */
+  protected final Counter rejections = new Counter();
+
   /**
    * Creates an instance with a capacity of 1031.
    */
@@ -433,12 +672,225 @@ public class Pool<E> extends WeakInterningHashSet<E>
   {
     super(minimumCapacity);
     this.primaryAccessUnits = primaryAccessUnits == null ? newDefaultAccessUnits() : primaryAccessUnits;
+    stripeLocks = null;
+    stripeAdditions = null;
   }
 
   protected Pool(int minimumCapacity, AccessUnit.Queue<E> primaryAccessUnits, ReferenceQueue<Object> queue)
   {
-    super(minimumCapacity, queue == null ? CommonUtil.REFERENCE_CLEARING_QUEUE : queue);
+    this(minimumCapacity, primaryAccessUnits, queue, 1);
+  }
+
+  /**
+   * Creates an instance that is {@link #isStriped() striped} if the concurrency level, i.e., the expected number of threads simultaneously adding values, is greater than one.
+   * The number of stripes is the concurrency level rounded up to a power of two.
+   */
+  protected Pool(int minimumCapacity, AccessUnit.Queue<E> primaryAccessUnits, ReferenceQueue<Object> queue, int concurrencyLevel)
+  {
+    this(minimumCapacity, primaryAccessUnits, queue, concurrencyLevel, 0);
+  }
+
+  /**
+   * Creates an instance with the given {@link #options}.
+   * An {@link #OPEN_ADDRESSING open addressing} pool is never striped, whatever the concurrency level,
+   * because adding a new key may claim an index beyond the range guarded by any one stripe lock.
+   * Nor is an {@link #INCREMENTAL_REHASH incrementally rehashed} pool, because each addition may migrate entries to indices guarded by other stripe locks.
+   */
+  protected Pool(int minimumCapacity, AccessUnit.Queue<E> primaryAccessUnits, ReferenceQueue<Object> queue, int concurrencyLevel, int options)
+  {
+    this(minimumCapacity, primaryAccessUnits, queue, concurrencyLevel, options, defaultLoadFactor(options));
+  }
+
+  /**
+   * Creates an instance with the given {@link #options} and {@link #loadFactor load factor}.
+   * To hold some expected number of values without ever rehashing, the minimum capacity should be at least that number divided by the load factor.
+   */
+  protected Pool(int minimumCapacity, AccessUnit.Queue<E> primaryAccessUnits, ReferenceQueue<Object> queue, int concurrencyLevel, int options, float loadFactor)
+  {
+    super(minimumCapacity, queue == null ? CommonUtil.REFERENCE_CLEARING_QUEUE : queue, options, loadFactor);
     this.primaryAccessUnits = primaryAccessUnits == null ? newDefaultAccessUnits() : primaryAccessUnits;
+    if (concurrencyLevel > 1 && (options & (OPEN_ADDRESSING | INCREMENTAL_REHASH)) == 0)
+    {
+      int stripeCount = Integer.highestOneBit(Math.min(concurrencyLevel, 1 << 16) - 1) << 1;
+      stripeLocks = new Lock[stripeCount];
+      for (int i = 0; i < stripeCount; ++i)
+      {
+        stripeLocks[i] = new ReentrantLock();
+      }
+      stripeAdditions = new int[stripeCount * STRIPE_PADDING];
+      updateStripeThreshold();
+    }
+    else
+    {
+      stripeLocks = null;
+      stripeAdditions = null;
+    }
+  }
+
+  /**
+   * Returns the value of the system property <code>org.eclipse.emf.common.util.<i>name</i>.<i>key</i></code>,
+   * or if that's not set, of <code>org.eclipse.emf.common.util.Pool.<i>key</i></code>, parsed as an integer;
+   * the default value is returned if neither is set or the value isn't a valid integer.
+   */
+  static int getIntegerProperty(String name, String key, int defaultValue)
+  {
+    String value = getProperty(name, key);
+    if (value != null)
+    {
+      try
+      {
+        return Integer.parseInt(value.trim());
+      }
+      catch (NumberFormatException exception)
+      {
+        // Ignore and use the default.
+      }
+    }
+
+    return defaultValue;
+  }
+
+  /**
+   * Returns the {@link #loadFactor load factor} specified by the <code>loadFactor</code> system property, read like those of {@link #getIntegerProperty(String, String, int)},
+   * for the pool with the given name;
+   * the {@link #defaultLoadFactor(int) default} for the pool's {@link #getOptionsProperty(String) options} is returned if the property isn't set or its value isn't a valid load factor for those options.
+   */
+  static float getLoadFactorProperty(String name)
+  {
+    int options = getOptionsProperty(name);
+    String value = getProperty(name, "loadFactor");
+    if (value != null)
+    {
+      try
+      {
+        float loadFactor = Float.parseFloat(value.trim());
+        if (isValidLoadFactor(loadFactor, options))
+        {
+          return loadFactor;
+        }
+      }
+      catch (NumberFormatException exception)
+      {
+        // Ignore and use the default.
+      }
+    }
+
+    return defaultLoadFactor(options);
+  }
+
+  /**
+   * Returns the {@link #options} specified by boolean system properties, read like those of {@link #getIntegerProperty(String, String, int)},
+   * for the pool with the given name:
+   * <code>openAddressing</code> for {@link #OPEN_ADDRESSING}, <code>powerOfTwo</code> for {@link #POWER_OF_TWO}, and <code>incrementalRehash</code> for {@link #INCREMENTAL_REHASH}.
+   */
+  static int getOptionsProperty(String name)
+  {
+    int options = 0;
+    if (Boolean.parseBoolean(getProperty(name, "openAddressing")))
+    {
+      options |= OPEN_ADDRESSING;
+    }
+    if (Boolean.parseBoolean(getProperty(name, "powerOfTwo")))
+    {
+      options |= POWER_OF_TWO;
+    }
+    if (Boolean.parseBoolean(getProperty(name, "incrementalRehash")))
+    {
+      options |= INCREMENTAL_REHASH;
+    }
+    return options;
+  }
+
+  /**
+   * Returns the {@link #retentionPolicy retention policy} specified by the <code>retention</code> system property, read like those of {@link #getIntegerProperty(String, String, int)},
+   * for the pool with the given name:
+   * <code>soft</code> for {@link RetentionPolicy#SOFT}, <code>strong</code> for {@link RetentionPolicy#STRONG},
+   * and <code>hot</code> for a {@link RetentionPolicy#createHotSet(int) hot set} with the capacity specified by the <code>hotCapacity</code> property, 4096 by default;
+   * <code>null</code> is returned if the property isn't set or has any other value, so that values are referenced only weakly.
+   */
+  static RetentionPolicy getRetentionPolicyProperty(String name)
+  {
+    String value = getProperty(name, "retention");
+    if (value != null)
+    {
+      value = value.trim();
+      if ("soft".equalsIgnoreCase(value))
+      {
+        return RetentionPolicy.SOFT;
+      }
+      else if ("strong".equalsIgnoreCase(value))
+      {
+        return RetentionPolicy.STRONG;
+      }
+      else if ("hot".equalsIgnoreCase(value))
+      {
+        return RetentionPolicy.createHotSet(getIntegerProperty(name, "hotCapacity", 4096));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of the system property <code>org.eclipse.emf.common.util.<i>name</i>.<i>key</i></code>,
+   * or if that's not set, of <code>org.eclipse.emf.common.util.Pool.<i>key</i></code>, or <code>null</code> if neither is set.
+   */
+  private static String getProperty(String name, String key)
+  {
+    String value = null;
+    try
+    {
+      value = System.getProperty("org.eclipse.emf.common.util." + name + "." + key);
+      if (value == null)
+      {
+        value = System.getProperty("org.eclipse.emf.common.util.Pool." + key);
+      }
+    }
+    catch (SecurityException exception)
+    {
+      // Ignore and use the default.
+    }
+    return value;
+  }
+
+  /**
+   * Returns whether this pool is striped, i.e., whether additions are guarded by the {@link #stripeLocks} rather than by the exclusive {@link #writeLock write lock}.
+   */
+  public final boolean isStriped()
+  {
+    return stripeLocks != null;
+  }
+
+  /**
+   * Adds the {@link #stripeAdditions} to the {@link #size} and to the {@link #modCount}, resets them, and {@link #updateStripeThreshold() updates} the {@link #stripeThreshold}.
+   * It must be called while holding the {@link #writeLock write lock}.
+   * The mod count isn't incremented by the additions themselves, because concurrent additions under different stripe locks would race to increment it;
+   * folding before {@link #iterator() iterating} accounts for them.
+   */
+  protected void foldStripeAdditions()
+  {
+    int[] stripeAdditions = this.stripeAdditions;
+    if (stripeAdditions != null)
+    {
+      int additions = 0;
+      for (int i = 0, length = stripeAdditions.length; i < length; i += STRIPE_PADDING)
+      {
+        additions += stripeAdditions[i];
+        stripeAdditions[i] = 0;
+      }
+      size += additions;
+      modCount += additions;
+      updateStripeThreshold();
+    }
+  }
+
+  /**
+   * Computes the {@link #stripeThreshold} such that the stripes can't collectively add more entries than remain below the {@link #threshold}
+   * without one of them reaching its threshold.
+   */
+  protected void updateStripeThreshold()
+  {
+    int stripeThreshold = (threshold - size) / stripeLocks.length;
+    this.stripeThreshold = stripeThreshold < 1 ? 1 : stripeThreshold;
   }
 
   protected static class ExternalRehasher<E> extends WeakReference<Pool<E>>
@@ -456,7 +908,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
       {
         int expectedCapacityIndex = pool.capacityIndex;
         int expectedSize = pool.size;
-        int expectedCapacity = PRIME_CAPACITIES[expectedCapacityIndex + 1];
+        int expectedCapacity = pool.capacity(expectedCapacityIndex + 1);
         Entry<E>[] oldEntries = pool.entries;
 
         @SuppressWarnings("unchecked")
@@ -477,13 +929,19 @@ public class Pool<E> extends WeakInterningHashSet<E>
           }
         }
 
-        pool.writeLock.lock();
+        pool.lockWriteLock();
         try
         {
+          long start = System.nanoTime();
+
+          // The size will be recomputed below, so first account for any additions made while holding only stripe locks.
+          //
+          pool.foldStripeAdditions();
+
           if (pool.entries == oldEntries && pool.capacityIndex == expectedCapacityIndex)
           {
-            int newCapacity = PRIME_CAPACITIES[pool.capacityIndex + 1];
-            int newThreshold = newCapacity * 3 / 4;
+            int newCapacity = pool.capacity(pool.capacityIndex + 1);
+            int newThreshold = pool.threshold(newCapacity);
             if (pool.size > newThreshold)
             {
               // It's growing so fast it's outstripped the capacity we were intending to provide.
@@ -552,6 +1010,16 @@ public class Pool<E> extends WeakInterningHashSet<E>
               pool.size = newSize;
               pool.threshold = newThreshold;
               ++pool.modCount;
+
+              // Only the time spent holding the write lock is recorded because that's the time for which other threads are blocked.
+              //
+              ++pool.rehashCount;
+              pool.rehashTime += System.nanoTime() - start;
+            }
+
+            if (pool.stripeLocks != null)
+            {
+              pool.updateStripeThreshold();
             }
           }
         }
@@ -568,6 +1036,18 @@ public class Pool<E> extends WeakInterningHashSet<E>
   @Override
   protected boolean ensureCapacity()
   {
+    // Account for any additions made while holding only stripe locks.
+    //
+    foldStripeAdditions();
+
+    // An open addressing pool is rehashed on this thread because the external rehasher only rehashes chained entries,
+    // and an incrementally rehashed pool migrates its entries as part of each addition.
+    //
+    if (hashCodes != null || (options & INCREMENTAL_REHASH) != 0)
+    {
+      return super.ensureCapacity();
+    }
+
     // If the current size is more the threshold..
     //
     if (size > threshold)
@@ -576,7 +1056,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
       {
         // Compute the new threshold.
         //
-        int newThreshold = PRIME_CAPACITIES[capacityIndex + 1] * 3 / 4;
+        int newThreshold = threshold(capacity(capacityIndex + 1));
         if (newThreshold == threshold)
         {
           // If it's the same as the current threshold, then the external queue's thread has not been able to keep up with rehashing, so do the work on the main thread.
@@ -596,7 +1076,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
       }
       else
       {
-        rehash(newEntries(PRIME_CAPACITIES[++capacityIndex]));
+        rehash(newEntries(capacity(++capacityIndex)));
         return true;
       }
     }
@@ -616,11 +1096,17 @@ public class Pool<E> extends WeakInterningHashSet<E>
       this.pool = pool;
     }
 
+    @Override
+    protected WeakInterningHashSet<E> getSet()
+    {
+      return pool;
+    }
+
     @Override
     public void clear()
     {
       Pool<E> pool = this.pool;
-      pool.writeLock.lock();
+      pool.lockWriteLock();
       try
       {
         clear(pool);
@@ -638,18 +1124,100 @@ public class Pool<E> extends WeakInterningHashSet<E>
     return new PoolEntry<E>(this, object, hashCode, externalQueue);
   }
 
+  /**
+   * {@link Reference#clear() Clears} the first <code>count</code> references, which have been removed from a reference clearing queue, and then nulls them out.
+   * Rather than let each pool entry acquire its pool's {@link #writeLock write lock} to remove itself,
+   * the entries are grouped by pool and each group is removed under a single acquisition of the lock,
+   * so that clearing the entries of a large unloaded model competes far less with ongoing interning.
+   * Any other reference is simply cleared.
+   */
+  static void clear(Reference<?>[] references, int count)
+  {
+    for (int i = 0; i < count; ++i)
+    {
+      Reference<?> reference = references[i];
+      if (reference != null)
+      {
+        references[i] = null;
+        Pool<?> pool = getPool(reference);
+        if (pool == null)
+        {
+          reference.clear();
+        }
+        else
+        {
+          pool.lockWriteLock();
+          try
+          {
+            pool.clear((Entry<?>)reference);
+
+            // Clear the remaining entries of the same pool while the lock is held.
+            //
+            for (int j = i + 1; j < count; ++j)
+            {
+              Reference<?> otherReference = references[j];
+              if (otherReference != null && getPool(otherReference) == pool)
+              {
+                references[j] = null;
+                pool.clear((Entry<?>)otherReference);
+              }
+            }
+          }
+          finally
+          {
+            pool.writeLock.unlock();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the pool from which the reference, if it's an entry, removes itself when {@link Reference#clear() cleared}, or <code>null</code>.
+   */
+  private static Pool<?> getPool(Reference<?> reference)
+  {
+    if (reference instanceof Entry<?>)
+    {
+      WeakInterningHashSet<?> set = ((Entry<?>)reference).getSet();
+      if (set instanceof Pool<?>)
+      {
+        return (Pool<?>)set;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes the entry from this pool, which must hold the {@link #writeLock write lock}, as the entry's {@link Entry#clear() clear} would.
+   */
+  @SuppressWarnings("unchecked")
+  private void clear(Entry<?> entry)
+  {
+    ((Entry<E>)entry).clear(this);
+  }
+
   protected AccessUnit.Queue<E> newDefaultAccessUnits()
   {
     return new ObjectAccessUnit.Queue<E>();
   }
 
+  /**
+   * Discards the calling thread's caches of this pool's access units.
+   */
+  protected void releaseLocalAccessUnits()
+  {
+    primaryAccessUnits.releaseLocalAccessUnits();
+  }
+
   /**
    * Returns this pool's {@link ReadWriteLock#readLock() read lock}.
    * This should be used only for thread-safe {@link #iterator() iteration} in which {@link Iterator#remove() remove} is not called.
+   * Because additions to a {@link #isStriped() striped} pool hold only the shared read lock, a striped pool returns its {@link #getWriteLock() write lock} instead.
    */
   public Lock getReadLock()
   {
-    return readLock;
+    return stripeLocks == null ? readLock : writeLock;
   }
 
   /**
@@ -661,6 +1229,212 @@ public class Pool<E> extends WeakInterningHashSet<E>
     return writeLock;
   }
 
+  /**
+   * Acquires the {@link #writeLock write lock}, recording the time spent waiting for it if it isn't immediately available.
+   */
+  protected final void lockWriteLock()
+  {
+    if (!writeLock.tryLock())
+    {
+      long start = System.nanoTime();
+      writeLock.lock();
+      ++writeLockWaitCount;
+      writeLockWaitTime += System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Returns the name under which the accesses by instances of the given access unit class are counted,
+   * i.e., the simple name of the class, or that of the nearest named superclass of an anonymous class.
+   */
+  protected static String getAccessUnitType(Class<?> accessUnitClass)
+  {
+    while (accessUnitClass.isAnonymousClass())
+    {
+      accessUnitClass = accessUnitClass.getSuperclass();
+    }
+    return accessUnitClass.getSimpleName();
+  }
+
+  /**
+   * Returns the {@link AccessCounters access counters} for the given type of access unit, creating them if necessary.
+   */
+  protected final AccessCounters getAccessCounters(Class<?> accessUnitClass)
+  {
+    String type = getAccessUnitType(accessUnitClass);
+    AccessCounters result = accessCounters.get(type);
+    if (result == null)
+    {
+      AccessCounters newAccessCounters = new AccessCounters();
+      result = accessCounters.putIfAbsent(type, newAccessCounters);
+      if (result == null)
+      {
+        result = newAccessCounters;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the {@link AccessCounters access counters} for the type of the given access unit,
+   * caching them in the access unit so that the next access to this pool by that access unit needn't look them up.
+   */
+  protected final AccessCounters getAccessCounters(AccessUnit<E> accessUnit)
+  {
+    if (accessUnit.accessCountersPool != this)
+    {
+      accessUnit.accessCounters = getAccessCounters(accessUnit.getClass());
+      accessUnit.accessCountersPool = this;
+    }
+    return accessUnit.accessCounters;
+  }
+
+  /**
+   * Returns the maximum number of entries, or 0 if the pool is unbounded.
+   */
+  public int getMaximumSize()
+  {
+    return maximumSize;
+  }
+
+  /**
+   * Sets the maximum number of entries, or 0 for an unbounded pool.
+   * Once the pool has that many entries, each addition of a new value is {@link PoolStatistics#getRejectionCount() counted} and rejected with an exception,
+   * until garbage collected entries have been cleared;
+   * values already in the pool continue to be found.
+   * The stripes of a {@link #isStriped() striped} pool count their additions without synchronizing with each other,
+   * so such a pool may exceed its maximum size by the number of entries being added concurrently.
+   */
+  public void setMaximumSize(int maximumSize)
+  {
+    this.maximumSize = maximumSize < 0 ? 0 : maximumSize;
+  }
+
+  /**
+   * Rejects the addition of a new value, while holding the lock that guards the addition, if the pool has reached its {@link #maximumSize maximum size}.
+   * @exception java.lang.IllegalStateException if the pool has reached its maximum size.
+   */
+  protected final void checkMaximumSize()
+  {
+    int maximumSize = this.maximumSize;
+    if (maximumSize != 0)
+    {
+      // Include the additions not yet folded into the size.
+      //
+      int size = this.size;
+      int[] stripeAdditions = this.stripeAdditions;
+      if (stripeAdditions != null)
+      {
+        for (int i = 0, length = stripeAdditions.length; i < length; i += STRIPE_PADDING)
+        {
+          size += stripeAdditions[i];
+        }
+      }
+      if (size >= maximumSize)
+      {
+        rejections.increment();
+        throw new IllegalStateException(getClass().getSimpleName() + " is full with " + size + " of at most " + maximumSize + " entries");
+      }
+    }
+  }
+
+  /**
+   * Returns the policy for retaining the values of this pool more than weakly, or <code>null</code> if they're referenced only weakly.
+   */
+  public RetentionPolicy getRetentionPolicy()
+  {
+    return retentionPolicy;
+  }
+
+  /**
+   * Sets the policy for retaining the values of this pool more than weakly, or <code>null</code> if they should be referenced only weakly.
+   * The values already in the pool are released by the previous policy, and then retained according to the new policy.
+   */
+  public void setRetentionPolicy(RetentionPolicy retentionPolicy)
+  {
+    lockWriteLock();
+    try
+    {
+      RetentionPolicy oldRetentionPolicy = this.retentionPolicy;
+      this.retentionPolicy = retentionPolicy;
+      if (oldRetentionPolicy != null)
+      {
+        retainEntries(entries, null);
+        retainEntries(migratingEntries, null);
+        oldRetentionPolicy.released();
+      }
+      if (retentionPolicy != null)
+      {
+        retainEntries(entries, retentionPolicy);
+        retainEntries(migratingEntries, retentionPolicy);
+      }
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Retains the values of the entries in the table according to the policy, or releases them if the policy is <code>null</code>.
+   */
+  private static void retainEntries(Entry<?>[] entries, RetentionPolicy retentionPolicy)
+  {
+    if (entries != null)
+    {
+      for (int i = 0, length = entries.length; i < length; ++i)
+      {
+        for (Entry<?> entry = entries[i]; entry != null; entry = entry.next)
+        {
+          if (retentionPolicy == null)
+          {
+            entry.retained = null;
+          }
+          else
+          {
+            Object value = entry.get();
+            if (value != null)
+            {
+              retentionPolicy.added(entry, value);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Informs the {@link #retentionPolicy retention policy}, if there is one, that the entry for the value has been added.
+   */
+  protected final void added(Entry<E> entry, E value)
+  {
+    RetentionPolicy retentionPolicy = this.retentionPolicy;
+    if (retentionPolicy != null)
+    {
+      retentionPolicy.added(entry, value);
+    }
+  }
+
+  /**
+   * Informs the {@link #retentionPolicy retention policy}, if there is one, that the value of the entry, if there is one, has been found.
+   */
+  protected final void accessed(Entry<E> entry)
+  {
+    RetentionPolicy retentionPolicy = this.retentionPolicy;
+    if (retentionPolicy != null && entry != null)
+    {
+      retentionPolicy.accessed(entry);
+    }
+  }
+
+  /**
+   * Returns a live view of the statistics of this pool, identified by the simple name of its class.
+   */
+  public PoolStatistics getStatistics()
+  {
+    return new PoolStatistics(getClass().getSimpleName(), this);
+  }
+
   /**
    * Gets the first entry with the matching hash code.
    * Use {@link Entry#getNextEntry()} to navigate to the next entry with the same hash code.
@@ -669,8 +1443,8 @@ public class Pool<E> extends WeakInterningHashSet<E>
   @Override
   protected Entry<E> getEntry(int hashCode)
   {
-    Entry<E>[] entries = this.entries;
-    int index = index(hashCode, entries.length);
+    Entry<E>[] entries = entriesFor(hashCode);
+    int index = indexOf(entries, hashCode);
     for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
     {
       if (hashCode == entry.hashCode)
@@ -694,9 +1468,9 @@ public class Pool<E> extends WeakInterningHashSet<E>
   {
     // Consider the entries for this hash code's index...
     //
-    Entry<E>[] entries = this.entries;
     int hashCode = accessUnit.hashCode;
-    int index = index(hashCode, entries.length);
+    Entry<E>[] entries = entriesFor(hashCode);
+    int index = indexOf(entries, hashCode);
     for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
     {
       // Consider only entries with this exact hash code, avoiding entries that are simply collisions for values that can't possibly be interesting.
@@ -725,6 +1499,31 @@ public class Pool<E> extends WeakInterningHashSet<E>
     }
   }
 
+  /**
+   * Does a reliable {@link #access(boolean, AccessUnit) access} while the {@link #readLock read lock} is held.
+   * For a {@link #isStriped() striped} pool, the stripe lock for the index is held during the access to exclude additions at that index.
+   */
+  protected final void lockedAccess(AccessUnit<E> accessUnit)
+  {
+    if (stripeLocks == null)
+    {
+      access(true, accessUnit);
+    }
+    else
+    {
+      Lock stripeLock = stripeLocks[indexOf(entries, accessUnit.hashCode) & (stripeLocks.length - 1)];
+      stripeLock.lock();
+      try
+      {
+        access(true, accessUnit);
+      }
+      finally
+      {
+        stripeLock.unlock();
+      }
+    }
+  }
+
   /**
    * Adds an entry to the pool,
    * but first checks if the entry has been added by another thread
@@ -735,18 +1534,24 @@ public class Pool<E> extends WeakInterningHashSet<E>
    */
   protected final E addEntry(boolean isExclusive, E internalizedValue, AccessUnit<E> accessUnit)
   {
+    if (!isExclusive && stripeLocks != null)
+    {
+      return addStripedEntry(internalizedValue, accessUnit);
+    }
+
     // Acquire exclusive update access.
     //
     if (!isExclusive)
     {
-      writeLock.lock();
+      lockWriteLock();
     }
     try
     {
       // We need to double check whether or not another thread has added the value since we originally checked while holding the shared read lock or no lock at all.
       //
       int hashCode = accessUnit.hashCode;
-      int index = index(hashCode, entries.length);
+      Entry<E>[] entries = entriesFor(hashCode);
+      int index = indexOf(entries, hashCode);
       for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
       {
         if (hashCode == entry.hashCode)
@@ -758,6 +1563,8 @@ public class Pool<E> extends WeakInterningHashSet<E>
           {
             // The value was added by another thread so return that interned result instead.
             //
+            getAccessCounters(accessUnit).hits.increment();
+            accessed(entry);
             return entryValue;
           }
         }
@@ -766,7 +1573,10 @@ public class Pool<E> extends WeakInterningHashSet<E>
       // Create an entry and add it because we know for sure that no other thread has added an entry for this value since we originally checked.
       // Record the fact that we created an entry.
       //
+      getAccessCounters(accessUnit).misses.increment();
+      checkMaximumSize();
       addEntry(index, accessUnit.createdEntry = newEntry(internalizedValue, hashCode));
+      added(accessUnit.createdEntry, internalizedValue);
 
       // Return the value we added.
       //
@@ -776,11 +1586,82 @@ public class Pool<E> extends WeakInterningHashSet<E>
     {
       // Release the write lock.
       //
-      //if (!isExclusive)
-      //{
+      if (!isExclusive)
+      {
+        writeLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Does the work of {@link #addEntry(boolean, Object, AccessUnit) adding} an entry to a {@link #isStriped() striped} pool.
+   * It holds the {@link #readLock read lock}, so that the pool can't rehash, and the {@link #stripeLocks stripe lock} for the index of the entry, so that no other thread can add to that index.
+   * Only if the stripe has reached its {@link #stripeThreshold threshold} is the {@link #writeLock write lock} acquired, after releasing those locks, to {@link #ensureCapacity() ensure capacity}.
+   */
+  private E addStripedEntry(E internalizedValue, AccessUnit<E> accessUnit)
+  {
+    int hashCode = accessUnit.hashCode;
+    boolean isFull;
+    readLock.lock();
+    try
+    {
+      Entry<E>[] entries = this.entries;
+      int index = indexOf(entries, hashCode);
+      int stripe = index & (stripeLocks.length - 1);
+      Lock stripeLock = stripeLocks[stripe];
+      stripeLock.lock();
+      try
+      {
+        // We need to double check whether or not another thread has added the value since we originally checked without holding any lock.
+        // Only the threads holding this stripe's lock can add at this index, so the check is reliable.
+        //
+        for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
+        {
+          if (hashCode == entry.hashCode)
+          {
+            E entryValue = entry.get();
+            if (entryValue != null && accessUnit.rematches(entryValue, entry))
+            {
+              getAccessCounters(accessUnit).hits.increment();
+              accessed(entry);
+              return entryValue;
+            }
+          }
+        }
+
+        // Create an entry and add it, counting the addition against the stripe rather than the size and the mod count.
+        //
+        getAccessCounters(accessUnit).misses.increment();
+        checkMaximumSize();
+        putEntry(index, accessUnit.createdEntry = newEntry(internalizedValue, hashCode));
+        added(accessUnit.createdEntry, internalizedValue);
+        isFull = ++stripeAdditions[stripe * STRIPE_PADDING] >= stripeThreshold;
+      }
+      finally
+      {
+        stripeLock.unlock();
+      }
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+
+    if (isFull)
+    {
+      lockWriteLock();
+      try
+      {
+        ensureCapacity();
+        updateStripeThreshold();
+      }
+      finally
+      {
         writeLock.unlock();
-      //}
+      }
     }
+
+    return internalizedValue;
   }
 
   /**
@@ -791,12 +1672,13 @@ public class Pool<E> extends WeakInterningHashSet<E>
   {
     // Acquire the exclusive write lock before attempting a cleanup.
     //
-    writeLock.lock();
+    lockWriteLock();
     try
     {
       // Reset the count.
       //
       accessCount = 0;
+      ++cleanupCount;
 
       // Perform any necessary garbage collection.
       //
@@ -826,7 +1708,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
   {
     // Acquire the exclusive write lock before attempting to grow.
     //
-    writeLock.lock();
+    lockWriteLock();
     try
     {
       // Reset the count.
@@ -846,6 +1728,50 @@ public class Pool<E> extends WeakInterningHashSet<E>
   }
 
 
+  /**
+   * Specialized to account for the additions to a {@link #isStriped() striped} pool.
+   */
+  @Override
+  public int size()
+  {
+    if (stripeLocks != null)
+    {
+      lockWriteLock();
+      try
+      {
+        foldStripeAdditions();
+      }
+      finally
+      {
+        writeLock.unlock();
+      }
+    }
+
+    return super.size();
+  }
+
+  /**
+   * Specialized to account for the additions to a {@link #isStriped() striped} pool.
+   */
+  @Override
+  public Iterator<E> iterator()
+  {
+    if (stripeLocks != null)
+    {
+      lockWriteLock();
+      try
+      {
+        foldStripeAdditions();
+      }
+      finally
+      {
+        writeLock.unlock();
+      }
+    }
+
+    return super.iterator();
+  }
+
   /**
    * Specialized to ensure thread safety.
    */
@@ -870,6 +1796,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
       E otherValue = accessUnit.match();
       if (otherValue != null)
       {
+        getAccessCounters(accessUnit).hits.increment();
         return false;
       }
 
@@ -924,6 +1851,8 @@ public class Pool<E> extends WeakInterningHashSet<E>
       E otherValue = accessUnit.match();
       if (otherValue != null)
       {
+        getAccessCounters(accessUnit).hits.increment();
+        accessed(accessUnit.getEntry());
         return otherValue;
       }
 
@@ -952,10 +1881,10 @@ public class Pool<E> extends WeakInterningHashSet<E>
     try
     {
       // Retrieve all the values with this hash code.
-      // This is done with a shared read lock, that's exclusive to any writes.
+      // This is done with a shared read lock, that's exclusive to any writes other than additions to a striped pool, which are excluded by the stripe lock.
       // This is done to ensure that a matching entry, if present, will be reliably found.
       //
-      access(true, accessUnit);
+      lockedAccess(accessUnit);
 
       return accessUnit.match();
     }
@@ -991,10 +1920,10 @@ public class Pool<E> extends WeakInterningHashSet<E>
     try
     {
       // Retrieve all the values with this hash code.
-      // This is done with a shared read lock, that's exclusive to any writes.
+      // This is done with a shared read lock, that's exclusive to any writes other than additions to a striped pool, which are excluded by the stripe lock.
       // This is done to ensure that a matching entry, if present, will be reliably found.
       //
-      access(true, accessUnit);
+      lockedAccess(accessUnit);
 
       return accessUnit.match() != null;
     }
@@ -1017,7 +1946,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
     // Acquire the appropriate lock before proceeding.
     // Note that this will end up calling cleanup if there is an internal queue, so it's read only access only if there is no internal queue.
     //
-    Lock lock = internalQueue == null ? readLock : writeLock;
+    Lock lock = internalQueue == null ? getReadLock() : writeLock;
     lock.lock();
     try
     {
@@ -1042,7 +1971,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
     // Acquire the appropriate lock before proceeding.
     // Note that this will end up calling cleanup if there is an internal queue, so it's read only access only if there is no internal queue.
     //
-    Lock lock = internalQueue == null ? readLock : writeLock;
+    Lock lock = internalQueue == null ? getReadLock() : writeLock;
     lock.lock();
     try
     {
@@ -1067,7 +1996,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
     // Acquire the appropriate lock before proceeding.
     // Note that this will end up calling cleanup if there is an internal queue, so it's read only access only if there is no internal queue.
     //
-    Lock lock = internalQueue == null ? readLock : writeLock;
+    Lock lock = internalQueue == null ? getReadLock() : writeLock;
     lock.lock();
     try
     {
@@ -1092,7 +2021,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
     // Acquire the appropriate lock before proceeding.
     // Note that this will end up calling cleanup if there is an internal queue, so it's read only access only if there is no internal queue.
     //
-    Lock lock = internalQueue == null ? readLock : writeLock;
+    Lock lock = internalQueue == null ? getReadLock() : writeLock;
     lock.lock();
     try
     {
@@ -1117,7 +2046,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
     // Acquire the appropriate lock before proceeding.
     // Note that this will end up calling cleanup if there is an internal queue, so it's read only access only if there is no internal queue.
     //
-    Lock lock = internalQueue == null ? readLock : writeLock;
+    Lock lock = internalQueue == null ? getReadLock() : writeLock;
     lock.lock();
     try
     {
@@ -1178,7 +2107,7 @@ public class Pool<E> extends WeakInterningHashSet<E>
     // Acquire the appropriate lock before proceeding.
     // Note that this will end up calling cleanup if there is an internal queue, so it's read only access only if there is no internal queue.
     //
-    Lock lock = internalQueue == null ? readLock : writeLock;
+    Lock lock = internalQueue == null ? getReadLock() : writeLock;
     lock.lock();
     try
     {
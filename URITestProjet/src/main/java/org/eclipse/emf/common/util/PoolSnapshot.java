@@ -0,0 +1,454 @@
+package org.eclipse.emf.common.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads compact binary snapshots of {@link URI URIs},
+ * so that a process that uses the same URIs each time it runs can populate the shared pools at startup without parsing a single URI string.
+ * <p>
+ * A snapshot stores each of the strings that are components of the URIs once, along with its hash code,
+ * then each of the segment arrays as a list of indices into those strings, along with its hash code,
+ * and finally each URI as indices of its components, along with its hash code.
+ * A URI with a {@link URI#hasFragment() fragment} is stored as the index of its base URI, which is stored before it, and the index of its fragment string.
+ * {@link #read(File) Reading} a snapshot memory maps the file and interns each string, each segment array, and each URI, in that order, directly from its components and its precomputed hash code.
+ * Each hash code is verified against the one recomputed from the components before anything is interned,
+ * so a corrupt or stale snapshot fails rather than adding values to the wrong chains of the pools.
+ * </p>
+ * <p>
+ * The shared pools hold their values only weakly,
+ * so the URIs returned by {@link #read(ByteBuffer)} must be held for as long as they're expected to stay pooled.
+ * </p>
+ */
+public final class PoolSnapshot
+{
+  /**
+   * The first four bytes of every snapshot.
+   */
+  static final int MAGIC = 0x45555053;
+
+  /**
+   * The version of the format, which follows the {@link #MAGIC}.
+   */
+  static final int VERSION = 2;
+
+  /**
+   * The {@link #write(OutputStream, Collection) written} flag for a hierarchical URI.
+   */
+  private static final int HIERARCHICAL = 0x1;
+
+  /**
+   * The {@link #write(OutputStream, Collection) written} flag for a hierarchical URI with an absolute path.
+   */
+  private static final int ABSOLUTE_PATH = 0x2;
+
+  /**
+   * The {@link #write(OutputStream, Collection) written} flag for a URI with a fragment.
+   */
+  private static final int FRAGMENT = 0x4;
+
+  private PoolSnapshot()
+  {
+    super();
+  }
+
+  /**
+   * Writes a snapshot of all the URIs currently in the shared pools, those without a fragment and those with one, to the given file.
+   * Returns the number of URIs in the pools.
+   */
+  public static int write(File file) throws IOException
+  {
+    List<URI> uris = new ArrayList<URI>(Arrays.asList(URI.POOL.toArray(new URI[0])));
+    uris.addAll(Arrays.asList(URI.FRAGMENT_POOL.toArray(new URI[0])));
+    OutputStream outputStream = new FileOutputStream(file);
+    try
+    {
+      write(outputStream, uris);
+    }
+    finally
+    {
+      outputStream.close();
+    }
+    return uris.size();
+  }
+
+  /**
+   * Writes a snapshot of the given URIs to the output stream;
+   * any <code>null</code> URIs are skipped.
+   * The base of a URI with a fragment is also written, just before it, unless it's written earlier anyway.
+   */
+  public static void write(OutputStream outputStream, Collection<URI> uris) throws IOException
+  {
+    // Index the components so that each string and each segment array is written once.
+    //
+    Map<String, Integer> strings = new HashMap<String, Integer>();
+    List<String> stringList = new ArrayList<String>();
+    Map<String[], Integer> segmentArrays = new IdentityHashMap<String[], Integer>();
+    List<String[]> segmentArrayList = new ArrayList<String[]>();
+    List<URI> uriList = new ArrayList<URI>(uris.size());
+    Map<URI, Integer> uriIndices = new IdentityHashMap<URI, Integer>();
+    for (URI uri : uris)
+    {
+      if (uri == null)
+      {
+        continue;
+      }
+      if (uri.hasFragment())
+      {
+        Fragment fragment = (Fragment)uri;
+        URI base = fragment.uri;
+        if (!uriIndices.containsKey(base))
+        {
+          indexComponents(strings, stringList, segmentArrays, segmentArrayList, base);
+          uriIndices.put(base, uriList.size());
+          uriList.add(base);
+        }
+        indexOf(strings, stringList, fragment.fragment.toString());
+      }
+      else
+      {
+        indexComponents(strings, stringList, segmentArrays, segmentArrayList, uri);
+        if (!uriIndices.containsKey(uri))
+        {
+          uriIndices.put(uri, uriList.size());
+        }
+      }
+      uriList.add(uri);
+    }
+
+    DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(outputStream));
+    dataOutputStream.writeInt(MAGIC);
+    dataOutputStream.writeInt(VERSION);
+
+    // Each string is written as its hash code and its length, followed by its characters as single bytes if they're all Latin-1,
+    // or by the complement of its length, followed by its characters as pairs of bytes, if they aren't.
+    //
+    dataOutputStream.writeInt(stringList.size());
+    for (String string : stringList)
+    {
+      dataOutputStream.writeInt(string.hashCode());
+      int length = string.length();
+      boolean isLatin1 = true;
+      for (int i = 0; i < length; ++i)
+      {
+        if (string.charAt(i) > 0xFF)
+        {
+          isLatin1 = false;
+          break;
+        }
+      }
+      if (isLatin1)
+      {
+        dataOutputStream.writeInt(length);
+        dataOutputStream.writeBytes(string);
+      }
+      else
+      {
+        dataOutputStream.writeInt(~length);
+        dataOutputStream.writeChars(string);
+      }
+    }
+
+    dataOutputStream.writeInt(segmentArrayList.size());
+    for (String[] segments : segmentArrayList)
+    {
+      dataOutputStream.writeInt(Arrays.hashCode(segments));
+      dataOutputStream.writeInt(segments.length);
+      for (String segment : segments)
+      {
+        dataOutputStream.writeInt(strings.get(segment));
+      }
+    }
+
+    dataOutputStream.writeInt(uriList.size());
+    for (URI uri : uriList)
+    {
+      dataOutputStream.writeInt(uri.hashCode());
+      if (uri.hasFragment())
+      {
+        Fragment fragment = (Fragment)uri;
+        dataOutputStream.writeByte(FRAGMENT);
+        dataOutputStream.writeInt(uriIndices.get(fragment.uri));
+        dataOutputStream.writeInt(indexOf(strings, stringList, fragment.fragment.toString()));
+      }
+      else if (uri.isHierarchical())
+      {
+        Hierarchical hierarchical = (Hierarchical)uri;
+        dataOutputStream.writeByte(hierarchical.hasAbsolutePath() ? HIERARCHICAL | ABSOLUTE_PATH : HIERARCHICAL);
+        dataOutputStream.writeInt(indexOf(strings, stringList, hierarchical.scheme));
+        dataOutputStream.writeInt(indexOf(strings, stringList, hierarchical.authority));
+        dataOutputStream.writeInt(indexOf(strings, stringList, hierarchical.device));
+        dataOutputStream.writeInt(segmentArrays.get(hierarchical.segments));
+        dataOutputStream.writeInt(indexOf(strings, stringList, hierarchical.query));
+      }
+      else
+      {
+        dataOutputStream.writeByte(0);
+        dataOutputStream.writeInt(indexOf(strings, stringList, uri.scheme()));
+        dataOutputStream.writeInt(indexOf(strings, stringList, uri.opaquePart()));
+      }
+    }
+    dataOutputStream.flush();
+  }
+
+  /**
+   * Indexes the strings and the segment array that are the components of the URI, which has no fragment.
+   */
+  private static void indexComponents(Map<String, Integer> strings, List<String> stringList, Map<String[], Integer> segmentArrays, List<String[]> segmentArrayList, URI uri)
+  {
+    if (uri.isHierarchical())
+    {
+      Hierarchical hierarchical = (Hierarchical)uri;
+      indexOf(strings, stringList, hierarchical.scheme);
+      indexOf(strings, stringList, hierarchical.authority);
+      indexOf(strings, stringList, hierarchical.device);
+      indexOf(strings, stringList, hierarchical.query);
+      String[] segments = hierarchical.segments;
+      if (!segmentArrays.containsKey(segments))
+      {
+        segmentArrays.put(segments, segmentArrayList.size());
+        segmentArrayList.add(segments);
+        for (String segment : segments)
+        {
+          indexOf(strings, stringList, segment);
+        }
+      }
+    }
+    else
+    {
+      indexOf(strings, stringList, uri.scheme());
+      indexOf(strings, stringList, uri.opaquePart());
+    }
+  }
+
+  /**
+   * Returns the index of the string in the list, adding it if it's not yet indexed, or -1 for <code>null</code>.
+   */
+  private static int indexOf(Map<String, Integer> strings, List<String> stringList, String string)
+  {
+    if (string == null)
+    {
+      return -1;
+    }
+    else
+    {
+      Integer index = strings.get(string);
+      if (index == null)
+      {
+        index = stringList.size();
+        strings.put(string, index);
+        stringList.add(string);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Memory maps the snapshot in the given file and {@link #read(ByteBuffer) reads} it.
+   */
+  public static URI[] read(File file) throws IOException
+  {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try
+    {
+      FileChannel channel = randomAccessFile.getChannel();
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    finally
+    {
+      // The mapping remains valid after the channel is closed.
+      //
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * Populates the shared pools from the snapshot in the buffer, starting at its current position,
+   * and returns the URIs of the snapshot, in the order in which they were written.
+   * URIs already in the pool are returned as is.
+   * @exception java.io.IOException if the snapshot is truncated or corrupt, e.g., if a hash code doesn't match its value.
+   */
+  public static URI[] read(ByteBuffer buffer) throws IOException
+  {
+    try
+    {
+      if (buffer.getInt() != MAGIC)
+      {
+        throw new IOException("Not a URI snapshot");
+      }
+      int version = buffer.getInt();
+      if (version != VERSION)
+      {
+        throw new IOException("Unsupported URI snapshot version: " + version);
+      }
+
+      // Grow each pool once to accommodate everything that will be added to it.
+      //
+      CommonUtil.StringPool stringPool = CommonUtil.STRING_POOL;
+      int stringCount = buffer.getInt();
+      grow(stringPool, stringCount);
+      String[] strings = new String[stringCount];
+      char[] characters = new char[256];
+      for (int i = 0; i < stringCount; ++i)
+      {
+        int hashCode = buffer.getInt();
+        int length = buffer.getInt();
+        boolean isLatin1 = length >= 0;
+        if (!isLatin1)
+        {
+          length = ~length;
+        }
+        if (length > characters.length)
+        {
+          characters = new char[Math.max(length, 2 * characters.length)];
+        }
+        if (isLatin1)
+        {
+          for (int j = 0; j < length; ++j)
+          {
+            characters[j] = (char)(buffer.get() & 0xFF);
+          }
+        }
+        else
+        {
+          buffer.asCharBuffer().get(characters, 0, length);
+          buffer.position(buffer.position() + 2 * length);
+        }
+
+        // A hash code that's trusted but wrong would add the string to the wrong chain,
+        // where lookups would miss it and create a duplicate, so the hash code is verified before interning.
+        //
+        int actualHashCode = 0;
+        for (int j = 0; j < length; ++j)
+        {
+          actualHashCode = 31 * actualHashCode + characters[j];
+        }
+        if (actualHashCode != hashCode)
+        {
+          throw new IOException("Corrupt URI snapshot");
+        }
+
+        // A string that's already pooled is found without creating a new string.
+        //
+        strings[i] = stringPool.intern(characters, 0, length, hashCode);
+      }
+
+      SegmentSequence.StringArrayPool stringArrayPool = SegmentSequence.STRING_ARRAY_POOL;
+      int segmentArrayCount = buffer.getInt();
+      grow(stringArrayPool, segmentArrayCount);
+      String[][] segmentArrays = new String[segmentArrayCount][];
+      String[] segments = new String[16];
+      for (int i = 0; i < segmentArrayCount; ++i)
+      {
+        int hashCode = buffer.getInt();
+        int segmentCount = buffer.getInt();
+        if (segmentCount > segments.length)
+        {
+          segments = new String[Math.max(segmentCount, 2 * segments.length)];
+        }
+        int actualHashCode = 1;
+        for (int j = 0; j < segmentCount; ++j)
+        {
+          String segment = strings[buffer.getInt()];
+          segments[j] = segment;
+          actualHashCode = 31 * actualHashCode + segment.hashCode();
+        }
+        if (actualHashCode != hashCode)
+        {
+          throw new IOException("Corrupt URI snapshot");
+        }
+        segmentArrays[i] = stringArrayPool.intern(segments, 0, segmentCount, hashCode);
+      }
+
+      URIPool uriPool = URI.POOL;
+      FragmentPool fragmentPool = URI.FRAGMENT_POOL;
+      int uriCount = buffer.getInt();
+      grow(uriPool, uriCount);
+      URI[] uris = new URI[uriCount];
+      for (int i = 0; i < uriCount; ++i)
+      {
+        int hashCode = buffer.getInt();
+        int flags = buffer.get();
+        if ((flags & FRAGMENT) != 0)
+        {
+          // The base must be an earlier URI without a fragment.
+          //
+          int baseIndex = buffer.getInt();
+          URI base = baseIndex < i ? uris[baseIndex] : null;
+          String fragment = strings[buffer.getInt()];
+          if (base == null || base.hasFragment() || (base.hashCode() * 31 + URI.FRAGMENT_SEPARATOR) * CommonUtil.powerOf31(fragment.length()) + fragment.hashCode() != hashCode)
+          {
+            throw new IOException("Corrupt URI snapshot");
+          }
+          uris[i] = fragmentPool.intern(base, fragment, false);
+          continue;
+        }
+
+        String scheme = string(strings, buffer.getInt());
+        String authority = string(strings, buffer.getInt());
+        boolean hierarchical = (flags & HIERARCHICAL) != 0;
+        String device = null;
+        boolean absolutePath = false;
+        String[] segmentArray = null;
+        String query = null;
+        if (hierarchical)
+        {
+          device = string(strings, buffer.getInt());
+          absolutePath = (flags & ABSOLUTE_PATH) != 0;
+          segmentArray = segmentArrays[buffer.getInt()];
+          query = string(strings, buffer.getInt());
+        }
+        else if (scheme == null || authority == null)
+        {
+          throw new IOException("Corrupt URI snapshot");
+        }
+        if (URIComponentsAccessUnit.hashCode(hierarchical, scheme, authority, device, absolutePath, segmentArray, query) != hashCode)
+        {
+          throw new IOException("Corrupt URI snapshot");
+        }
+        uris[i] = uriPool.intern(false, hierarchical, scheme, authority, device, absolutePath, segmentArray, query, hashCode);
+      }
+      return uris;
+    }
+    catch (BufferUnderflowException exception)
+    {
+      IOException ioException = new IOException("Truncated URI snapshot");
+      ioException.initCause(exception);
+      throw ioException;
+    }
+    catch (IndexOutOfBoundsException exception)
+    {
+      IOException ioException = new IOException("Corrupt URI snapshot");
+      ioException.initCause(exception);
+      throw ioException;
+    }
+  }
+
+  private static String string(String[] strings, int index)
+  {
+    return index == -1 ? null : strings[index];
+  }
+
+  /**
+   * Grows the pool so that it can accommodate the given number of additional values without rehashing.
+   */
+  private static void grow(Pool<?> pool, int count)
+  {
+    pool.grow((int)Math.min((pool.size() + (long)count) / pool.loadFactor + 1, Integer.MAX_VALUE));
+  }
+}
@@ -0,0 +1,262 @@
+package org.eclipse.emf.common.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A live view of the statistics of a {@link Pool pool}.
+ * The counts are maintained by the pool as it's accessed and are cheap enough to always be on;
+ * each call to a getter reads the current value, without locking, so the values are approximate while the pool is in use.
+ * The chain lengths are computed by scanning the pool's table on each call.
+ * <p>
+ * An access that misses may in turn access the pool with another type of access unit,
+ * e.g., a URI string that isn't found is parsed and the URI composed from the parsed components is then looked up,
+ * so the total counts are of accesses, not of calls to the factory methods.
+ * </p>
+ * @see Pool#getStatistics()
+ */
+public final class PoolStatistics implements PoolStatisticsMXBean
+{
+  /**
+   * The domain and type of the {@link ObjectName object names} under which the {@link #registerMBeans() shared pools are registered}.
+   */
+  public static final String OBJECT_NAME_PREFIX = "org.eclipse.emf.common.util:type=Pool,name=";
+
+  private final String name;
+
+  private final Pool<?> pool;
+
+  PoolStatistics(String name, Pool<?> pool)
+  {
+    this.name = name;
+    this.pool = pool;
+  }
+
+  /**
+   * Returns the statistics of the pools shared by all {@link URI URIs}, keyed by their names:
+   * <code>URIPool</code>, <code>FragmentPool</code>, <code>StringPool</code>, <code>SegmentSequencePool</code>, and <code>StringArrayPool</code>.
+   */
+  public static Map<String, PoolStatistics> getSharedPoolStatistics()
+  {
+    Map<String, PoolStatistics> result = new LinkedHashMap<String, PoolStatistics>();
+    result.put("URIPool", URI.POOL.getStatistics());
+    result.put("FragmentPool", URI.FRAGMENT_POOL.getStatistics());
+    result.put("StringPool", CommonUtil.STRING_POOL.getStatistics());
+    result.put("SegmentSequencePool", SegmentSequence.POOL.getStatistics());
+    result.put("StringArrayPool", SegmentSequence.STRING_ARRAY_POOL.getStatistics());
+    return result;
+  }
+
+  /**
+   * Registers the statistics of each of the {@link #getSharedPoolStatistics() shared pools} with the platform MBean server,
+   * under the object name {@link #OBJECT_NAME_PREFIX} followed by the pool's name.
+   * Any statistics already registered under that name are replaced.
+   */
+  public static void registerMBeans() throws JMException
+  {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    for (Map.Entry<String, PoolStatistics> entry : getSharedPoolStatistics().entrySet())
+    {
+      ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + entry.getKey());
+      if (mBeanServer.isRegistered(objectName))
+      {
+        mBeanServer.unregisterMBean(objectName);
+      }
+      mBeanServer.registerMBean(entry.getValue(), objectName);
+    }
+  }
+
+  /**
+   * Unregisters any statistics {@link #registerMBeans() registered} for the shared pools.
+   */
+  public static void unregisterMBeans() throws JMException
+  {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    for (String name : getSharedPoolStatistics().keySet())
+    {
+      ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + name);
+      if (mBeanServer.isRegistered(objectName))
+      {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    }
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  public int getSize()
+  {
+    return pool.size();
+  }
+
+  public int getCapacity()
+  {
+    return pool.entries.length;
+  }
+
+  public long getHitCount()
+  {
+    long result = 0;
+    for (Pool.AccessCounters accessCounters : pool.accessCounters.values())
+    {
+      result += accessCounters.hits.get();
+    }
+    return result;
+  }
+
+  public long getMissCount()
+  {
+    long result = 0;
+    for (Pool.AccessCounters accessCounters : pool.accessCounters.values())
+    {
+      result += accessCounters.misses.get();
+    }
+    return result;
+  }
+
+  public double getHitRatio()
+  {
+    long hitCount = getHitCount();
+    long total = hitCount + getMissCount();
+    return total == 0 ? 0.0 : (double)hitCount / total;
+  }
+
+  public Map<String, Long> getHitCounts()
+  {
+    Map<String, Long> result = new TreeMap<String, Long>();
+    for (Map.Entry<String, Pool.AccessCounters> entry : pool.accessCounters.entrySet())
+    {
+      result.put(entry.getKey(), entry.getValue().hits.get());
+    }
+    return result;
+  }
+
+  public Map<String, Long> getMissCounts()
+  {
+    Map<String, Long> result = new TreeMap<String, Long>();
+    for (Map.Entry<String, Pool.AccessCounters> entry : pool.accessCounters.entrySet())
+    {
+      result.put(entry.getKey(), entry.getValue().misses.get());
+    }
+    return result;
+  }
+
+  public int getMaximumChainLength()
+  {
+    return getChainLengthHistogram().length - 1;
+  }
+
+  public double getAverageChainLength()
+  {
+    int[] histogram = getChainLengthHistogram();
+    long entryCount = 0;
+    long chainCount = 0;
+    for (int i = 1; i < histogram.length; ++i)
+    {
+      entryCount += (long)i * histogram[i];
+      chainCount += histogram[i];
+    }
+    return chainCount == 0 ? 0.0 : (double)entryCount / chainCount;
+  }
+
+  public int[] getChainLengthHistogram()
+  {
+    // Scan the table without locking, as a lookup does.
+    // For an incrementally rehashed pool, include the chains not yet migrated from its previous table, but not that table's empty indices.
+    //
+    WeakInterningHashSet.Entry<?>[] entries = pool.entries;
+    WeakInterningHashSet.Entry<?>[] migratingEntries = pool.migratingEntries;
+    int[] histogram = new int[8];
+    int maximumLength = 0;
+    for (WeakInterningHashSet.Entry<?>[] table = entries; table != null; table = table == entries ? migratingEntries : null)
+    {
+      for (WeakInterningHashSet.Entry<?> chain : table)
+      {
+        if (chain == null && table != entries)
+        {
+          continue;
+        }
+        int length = 0;
+        for (WeakInterningHashSet.Entry<?> entry = chain; entry != null; entry = entry.next)
+        {
+          ++length;
+        }
+        if (length >= histogram.length)
+        {
+          int[] newHistogram = new int[2 * length];
+          System.arraycopy(histogram, 0, newHistogram, 0, histogram.length);
+          histogram = newHistogram;
+        }
+        ++histogram[length];
+        if (length > maximumLength)
+        {
+          maximumLength = length;
+        }
+      }
+    }
+    int[] result = new int[maximumLength + 1];
+    System.arraycopy(histogram, 0, result, 0, maximumLength + 1);
+    return result;
+  }
+
+  public int getRehashCount()
+  {
+    return pool.rehashCount;
+  }
+
+  public long getRehashTime()
+  {
+    return pool.rehashTime;
+  }
+
+  public long getCleanupCount()
+  {
+    return pool.cleanupCount;
+  }
+
+  public long getClearedEntryCount()
+  {
+    return pool.clearedEntryCount;
+  }
+
+  public long getWriteLockWaitCount()
+  {
+    return pool.writeLockWaitCount;
+  }
+
+  public long getWriteLockWaitTime()
+  {
+    return pool.writeLockWaitTime;
+  }
+
+  public int getMaximumSize()
+  {
+    return pool.maximumSize;
+  }
+
+  public long getRejectionCount()
+  {
+    return pool.rejections.get();
+  }
+
+  @Override
+  public String toString()
+  {
+    return
+      name + " [size=" + getSize() + ", capacity=" + getCapacity() + ", hits=" + getHitCounts() + ", misses=" + getMissCounts() +
+        ", maximumChainLength=" + getMaximumChainLength() + ", averageChainLength=" + getAverageChainLength() +
+        ", rehashCount=" + getRehashCount() + ", rehashTime=" + getRehashTime() +
+        ", cleanupCount=" + getCleanupCount() + ", clearedEntryCount=" + getClearedEntryCount() +
+        ", writeLockWaitCount=" + getWriteLockWaitCount() + ", writeLockWaitTime=" + getWriteLockWaitTime() +
+        ", maximumSize=" + getMaximumSize() + ", rejectionCount=" + getRejectionCount() + "]";
+  }
+}
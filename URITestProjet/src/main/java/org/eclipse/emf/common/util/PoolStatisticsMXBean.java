@@ -0,0 +1,106 @@
+package org.eclipse.emf.common.util;
+
+import java.util.Map;
+
+/**
+ * The management interface for the {@link PoolStatistics statistics} of a {@link Pool pool}.
+ * @see PoolStatistics#registerMBeans()
+ */
+public interface PoolStatisticsMXBean
+{
+  /**
+   * Returns the name of the pool.
+   */
+  String getName();
+
+  /**
+   * Returns the number of entries in the pool, including those whose values have been garbage collected but not yet cleaned up.
+   */
+  int getSize();
+
+  /**
+   * Returns the length of the pool's table of entries.
+   */
+  int getCapacity();
+
+  /**
+   * Returns the total number of accesses that found the value already in the pool.
+   */
+  long getHitCount();
+
+  /**
+   * Returns the total number of accesses that didn't find the value in the pool.
+   */
+  long getMissCount();
+
+  /**
+   * Returns the ratio of the {@link #getHitCount() hit count} to the total number of accesses, or 0 if there haven't been any accesses.
+   */
+  double getHitRatio();
+
+  /**
+   * Returns the number of hits for each type of access unit, keyed by the simple name of the access unit's class.
+   */
+  Map<String, Long> getHitCounts();
+
+  /**
+   * Returns the number of misses for each type of access unit, keyed by the simple name of the access unit's class.
+   */
+  Map<String, Long> getMissCounts();
+
+  /**
+   * Returns the length of the longest collision chain in the table.
+   */
+  int getMaximumChainLength();
+
+  /**
+   * Returns the average length of the collision chains that aren't empty.
+   */
+  double getAverageChainLength();
+
+  /**
+   * Returns the number of indices in the table for each chain length,
+   * i.e., the element at index <code>i</code> is the number of indices with a chain of <code>i</code> entries.
+   */
+  int[] getChainLengthHistogram();
+
+  /**
+   * Returns the number of times the table has been rehashed.
+   */
+  int getRehashCount();
+
+  /**
+   * Returns the total time, in nanoseconds, spent rehashing the table while holding the write lock.
+   */
+  long getRehashTime();
+
+  /**
+   * Returns the number of times the pool's reference queue has been polled to clean up garbage collected entries.
+   */
+  long getCleanupCount();
+
+  /**
+   * Returns the number of entries removed from the table because their values were garbage collected.
+   */
+  long getClearedEntryCount();
+
+  /**
+   * Returns the number of times the write lock was acquired only after waiting for another thread to release it.
+   */
+  long getWriteLockWaitCount();
+
+  /**
+   * Returns the total time, in nanoseconds, spent waiting to acquire the write lock.
+   */
+  long getWriteLockWaitTime();
+
+  /**
+   * Returns the maximum number of entries, or 0 if the pool is unbounded.
+   */
+  int getMaximumSize();
+
+  /**
+   * Returns the number of additions rejected because the pool had reached its maximum size.
+   */
+  long getRejectionCount();
+}
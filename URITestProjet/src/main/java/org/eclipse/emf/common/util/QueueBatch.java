@@ -0,0 +1,27 @@
+package org.eclipse.emf.common.util;
+
+import org.eclipse.emf.common.util.Pool.AccessUnit;
+
+class QueueBatch extends Queue
+  {
+    private static final long serialVersionUID = 1L;
+
+    final protected URIPool pool;
+
+    public QueueBatch(URIPool pool)
+    {
+      this.pool = pool;
+    }
+
+    @Override
+    public BatchAccessUnit pop(boolean isExclusive)
+    {
+      return (BatchAccessUnit)super.pop(isExclusive);
+    }
+
+    @Override
+    protected AccessUnit<URI> newAccessUnit()
+    {
+      return new BatchAccessUnit(this, pool);
+    }
+  }
@@ -0,0 +1,20 @@
+package org.eclipse.emf.common.util;
+
+import org.eclipse.emf.common.util.Pool.AccessUnit;
+
+class QueueBytes extends Queue
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public BytesAccessUnit pop(boolean isExclusive)
+    {
+      return (BytesAccessUnit)super.pop(isExclusive);
+    }
+
+    @Override
+    protected AccessUnit<URI> newAccessUnit()
+    {
+      return new BytesAccessUnit(this);
+    }
+  }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package org.eclipse.emf.common.util;
+
+import org.eclipse.emf.common.util.Pool.AccessUnit;
+
+class QueueCharacters extends Queue
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public URICharactersAccessUnit pop(boolean isExclusive)
+    {
+      return (URICharactersAccessUnit)super.pop(isExclusive);
+    }
+
+    @Override
+    protected AccessUnit<URI> newAccessUnit()
+    {
+      return new URICharactersAccessUnit(this);
+    }
+  }
\ No newline at end of file
@@ -0,0 +1,274 @@
+package org.eclipse.emf.common.util;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.eclipse.emf.common.util.WeakInterningHashSet.Entry;
+
+/**
+ * A policy for how strongly a {@link Pool} {@link Pool#setRetentionPolicy(RetentionPolicy) retains} the values it has interned.
+ * Without a policy, a pool references its values only weakly, so a value that's no longer used elsewhere is garbage collected,
+ * and must be created all over again the next time it's interned,
+ * e.g., every URI of a model is parsed again each time the model is reloaded after having been unloaded.
+ * A policy trades memory for avoiding that churn by making some or all of the values more than weakly reachable:
+ * <ul>
+ * <li>{@link #SOFT} references each value softly, so values are retained until the garbage collector needs the memory.</li>
+ * <li>{@link #createHotSet(int)} strongly references a bounded set of the most recently or frequently interned values, leaving the others weakly referenced.</li>
+ * <li>{@link #STRONG} references each value strongly, so the pool never shrinks.</li>
+ * </ul>
+ * A policy retains a value via the {@link Entry#retained retained} field of the value's entry,
+ * so a retained value's entry is never enqueued for removal from the pool.
+ */
+public abstract class RetentionPolicy
+{
+  /**
+   * The policy that references each value softly.
+   */
+  public static final RetentionPolicy SOFT =
+    new RetentionPolicy()
+    {
+      @Override
+      protected void added(Entry<?> entry, Object value)
+      {
+        entry.retained = new SoftReference<Object>(value);
+      }
+
+      @Override
+      protected void accessed(Entry<?> entry)
+      {
+        // Getting the referent marks it as recently used, so the garbage collector prefers to clear less recently used values.
+        //
+        Object retained = entry.retained;
+        if (retained instanceof SoftReference<?>)
+        {
+          ((SoftReference<?>)retained).get();
+        }
+      }
+
+      @Override
+      public String toString()
+      {
+        return "soft";
+      }
+    };
+
+  /**
+   * The policy that references each value strongly.
+   */
+  public static final RetentionPolicy STRONG =
+    new RetentionPolicy()
+    {
+      @Override
+      protected void added(Entry<?> entry, Object value)
+      {
+        entry.retained = value;
+      }
+
+      @Override
+      public String toString()
+      {
+        return "strong";
+      }
+    };
+
+  /**
+   * Returns a new policy that strongly references at most the given number of values, rounded up to a power of two.
+   * Each value is added to the set when it's first interned, or when it's interned again after having been evicted;
+   * when the set is full, the CLOCK algorithm picks the value to evict,
+   * i.e., the first one that the set's hand finds hasn't been interned again since the hand last passed it.
+   * An evicted value is referenced only weakly, as usual.
+   * Neither adding a value nor evicting one locks, so threads that find values in the pool never serialize on the policy.
+   * Because the policy has state, each pool needs its own instance.
+   */
+  public static RetentionPolicy createHotSet(int capacity)
+  {
+    return new HotSet(capacity);
+  }
+
+  /**
+   * Creates an instance.
+   */
+  protected RetentionPolicy()
+  {
+    super();
+  }
+
+  /**
+   * Called when the entry for the value has been added to the pool, while holding the lock that guards the addition.
+   */
+  protected abstract void added(Entry<?> entry, Object value);
+
+  /**
+   * Called without locking when the value of the entry has been found in the pool.
+   * This implementation does nothing.
+   */
+  protected void accessed(Entry<?> entry)
+  {
+    // Ignore.
+  }
+
+  /**
+   * Called, while holding the pool's write lock, when the pool stops using this policy, after the {@link Entry#retained retained} field of each entry has been cleared.
+   * This implementation does nothing.
+   */
+  protected void released()
+  {
+    // Ignore.
+  }
+
+  /**
+   * A bounded set of strongly referenced values, managed with the CLOCK algorithm, without locking.
+   * A thread replaces the value in a slot only after {@link #claimed claiming} the slot,
+   * so concurrent threads sweeping from the same position of the hand each take a different slot.
+   */
+  private static final class HotSet extends RetentionPolicy
+  {
+    /**
+     * The entries of the values in each slot.
+     * An entry in the set has the {@link #slots slot} of its value as its {@link Entry#retained retained} object.
+     */
+    private final Entry<?>[] entries;
+
+    /**
+     * The value in each slot.
+     */
+    private final Object[] values;
+
+    /**
+     * Whether the value in each slot has been interned again since the hand last passed it.
+     */
+    private final byte[] referenced;
+
+    /**
+     * Whether each slot is being replaced by some thread.
+     */
+    private final AtomicIntegerArray claimed;
+
+    /**
+     * The index of each slot.
+     */
+    private final Integer[] slots;
+
+    /**
+     * The mask for the index of a slot.
+     */
+    private final int mask;
+
+    /**
+     * The position of the CLOCK hand.
+     * It's advanced without synchronization, so concurrent sweeps may overlap, in which case the {@link #claimed claims} keep them apart.
+     */
+    private volatile int hand;
+
+    HotSet(int capacity)
+    {
+      int length = 1;
+      while (length < capacity && length < 1 << 24)
+      {
+        length <<= 1;
+      }
+      entries = new Entry<?>[length];
+      values = new Object[length];
+      referenced = new byte[length];
+      claimed = new AtomicIntegerArray(length);
+      slots = new Integer[length];
+      for (int i = 0; i < length; ++i)
+      {
+        slots[i] = i;
+      }
+      mask = length - 1;
+    }
+
+    @Override
+    protected void added(Entry<?> entry, Object value)
+    {
+      add(entry, value);
+    }
+
+    @Override
+    protected void accessed(Entry<?> entry)
+    {
+      // Setting the reference bit doesn't lock.
+      // If the value is evicted concurrently, the bit gives its replacement a second chance, which is harmless.
+      //
+      Object retained = entry.retained;
+      if (retained instanceof Integer)
+      {
+        referenced[(Integer)retained] = 1;
+      }
+      else if (retained == null)
+      {
+        Object value = entry.get();
+        if (value != null)
+        {
+          add(entry, value);
+        }
+      }
+    }
+
+    /**
+     * Adds the value to a slot, evicting the value in that slot, if there is one.
+     * If every slot is referenced or claimed throughout two sweeps, which only heavy contention can cause, the value is left weakly referenced.
+     */
+    private void add(Entry<?> entry, Object value)
+    {
+      // Each referenced slot gets a second chance, so at most two sweeps are needed,
+      // though concurrent accesses could set bits behind the hand, so the sweep is bounded.
+      //
+      int hand = this.hand;
+      for (int i = 0, limit = 2 * slots.length; i < limit; ++i, hand = (hand + 1) & mask)
+      {
+        if (referenced[hand] != 0)
+        {
+          referenced[hand] = 0;
+        }
+        else if (claimed.compareAndSet(hand, 0, 1))
+        {
+          try
+          {
+            // Another thread may have added the entry in the meantime.
+            //
+            if (entry.retained == null)
+            {
+              // The evicted entry is released only if it's still retained by this slot rather than by one it was added to concurrently.
+              //
+              Integer slot = slots[hand];
+              Entry<?> evictedEntry = entries[hand];
+              if (evictedEntry != null && evictedEntry.retained == slot)
+              {
+                evictedEntry.retained = null;
+              }
+              entries[hand] = entry;
+              values[hand] = value;
+              referenced[hand] = 0;
+              entry.retained = slot;
+            }
+          }
+          finally
+          {
+            claimed.set(hand, 0);
+          }
+          this.hand = (hand + 1) & mask;
+          return;
+        }
+      }
+    }
+
+    @Override
+    protected void released()
+    {
+      for (int i = 0; i < entries.length; ++i)
+      {
+        entries[i] = null;
+        values[i] = null;
+        referenced[i] = 0;
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      return "hot(" + slots.length + ")";
+    }
+  }
+}
@@ -629,10 +629,11 @@ public final class SegmentSequence implements CharSequence
      */
     public StringArrayPool(ReferenceQueue<Object> queue)
     {
-      super(1031, new SegmentsAccessUnit.Queue(), queue);
+      super(getIntegerProperty("StringArrayPool", "initialCapacity", 1031), new SegmentsAccessUnit.Queue(), queue, getIntegerProperty("StringArrayPool", "concurrencyLevel", 1), getOptionsProperty("StringArrayPool"), getLoadFactorProperty("StringArrayPool"));
+      retentionPolicy = getRetentionPolicyProperty("StringArrayPool");
 
-      addEntry(1, newEntry(EMPTY_ARRAY, 1));
-      addEntry(31, newEntry(EMPTY_STRING_ARRAY, 31));
+      addEntry(indexOf(entries, 1), newEntry(EMPTY_ARRAY, 1));
+      addEntry(indexOf(entries, 31), newEntry(EMPTY_STRING_ARRAY, 31));
 
       segmentsAccessUnits = (SegmentsAccessUnit.Queue)primaryAccessUnits;
     }
@@ -1266,6 +1267,124 @@ public final class SegmentSequence implements CharSequence
       }
     }
 
+    /**
+     * Access units for accumulating segments on a reusable stack.
+     */
+    protected final SegmentsStackAccessUnit.Queue segmentsStackAccessUnits = new SegmentsStackAccessUnit.Queue();
+
+    /**
+     * An access unit for accumulating segments on a reusable stack, e.g., while resolving a relative path, maintaining the hash code as segments are pushed and popped.
+     * The stack and the hash codes of its prefixes are retained while the unit is reused,
+     * so accumulating creates no objects, and neither does interning the result if it's already in the pool.
+     */
+    protected static class SegmentsStackAccessUnit extends SegmentsAndSegmentCountAccessUnit
+    {
+      protected static class Queue extends SegmentsAndSegmentCountAccessUnit.Queue
+      {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public SegmentsStackAccessUnit pop(boolean isExclusive)
+        {
+          return (SegmentsStackAccessUnit)super.pop(isExclusive);
+        }
+
+        @Override
+        protected AccessUnit<String[]> newAccessUnit()
+        {
+          return new SegmentsStackAccessUnit(this);
+        }
+      }
+
+      /**
+       * The reusable stack of segments.
+       */
+      protected String[] stack = new String[16];
+
+      /**
+       * The hash code of each prefix of the {@link #stack}, i.e., the element at index <code>i</code> is the hash code of the first <code>i</code> segments.
+       */
+      protected int[] prefixHashCodes = new int[17];
+
+      /**
+       * The greatest depth of the {@link #stack} since it was last cleared.
+       */
+      protected int depth;
+
+      protected SegmentsStackAccessUnit(Queue queue)
+      {
+        super(queue);
+      }
+
+      /**
+       * Empties the stack, ensuring that it can hold the given number of segments.
+       */
+      protected void setValue(int capacity)
+      {
+        if (stack.length < capacity)
+        {
+          stack = new String[Math.max(capacity, 2 * stack.length)];
+          prefixHashCodes = new int[stack.length + 1];
+        }
+        segments = stack;
+        offset = 0;
+        segmentCount = 0;
+        prefixHashCodes[0] = 1;
+        hashCode = 1;
+      }
+
+      /**
+       * Returns the number of segments on the stack.
+       */
+      protected int size()
+      {
+        return segmentCount;
+      }
+
+      /**
+       * Returns the segment on the top of the stack.
+       */
+      protected String peek()
+      {
+        return stack[segmentCount - 1];
+      }
+
+      /**
+       * Pushes the segment onto the stack.
+       */
+      protected void push(String segment)
+      {
+        int segmentCount = this.segmentCount;
+        stack[segmentCount] = segment;
+        int hashCode = 31 * prefixHashCodes[segmentCount] + segment.hashCode();
+        prefixHashCodes[++segmentCount] = hashCode;
+        this.segmentCount = segmentCount;
+        this.hashCode = hashCode;
+        if (segmentCount > depth)
+        {
+          depth = segmentCount;
+        }
+      }
+
+      /**
+       * Pops the segment on the top of the stack.
+       */
+      protected void pop()
+      {
+        hashCode = prefixHashCodes[--segmentCount];
+      }
+
+      @Override
+      public void reset(boolean isExclusive)
+      {
+        // Don't retain references to the segments.
+        //
+        Arrays.fill(stack, 0, depth, null);
+        depth = 0;
+        super.reset(isExclusive);
+      }
+    }
+
     /**
      * Access units for accessing segments that may need copying or interning.
      */
@@ -1835,6 +1954,25 @@ public final class SegmentSequence implements CharSequence
       return doIntern(false, accessUnit);
     }
 
+    /**
+     * Returns an access unit for accumulating up to the given number of segments,
+     * which must be {@link #intern(SegmentsStackAccessUnit) interned} once the segments have been accumulated.
+     */
+    protected SegmentsStackAccessUnit getSegmentsStack(int capacity)
+    {
+      SegmentsStackAccessUnit accessUnit = segmentsStackAccessUnits.pop(false);
+      accessUnit.setValue(capacity);
+      return accessUnit;
+    }
+
+    /**
+     * Intern the segments accumulated on the stack, releasing the access unit for reuse.
+     */
+    protected String[] intern(SegmentsStackAccessUnit accessUnit)
+    {
+      return doIntern(false, accessUnit);
+    }
+
     /**
      * Intern segments that may need copying or interning.
      */
@@ -2588,7 +2726,8 @@ public final class SegmentSequence implements CharSequence
      */
     public SegmentSequencePool(ReferenceQueue<Object> queue)
     {
-      super(1031, null, queue);
+      super(getIntegerProperty("SegmentSequencePool", "initialCapacity", 1031), null, queue, getIntegerProperty("SegmentSequencePool", "concurrencyLevel", 1), getOptionsProperty("SegmentSequencePool"), getLoadFactorProperty("SegmentSequencePool"));
+      retentionPolicy = getRetentionPolicyProperty("SegmentSequencePool");
       cachedToStrings = externalQueue == null ? new ReferenceQueue<String>() : null;
     }
 
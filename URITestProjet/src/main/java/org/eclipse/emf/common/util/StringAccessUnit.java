@@ -35,6 +35,11 @@ class StringAccessUnit extends URIPoolAccessUnitBase
    */
   protected SegmentSequence.StringArrayPool.SegmentsAndSubsegmentAccessUnit stringArraySegmentsAndSubsegmentAccessUnit = new SegmentSequence.StringArrayPool.SegmentsAndSubsegmentAccessUnit(null);
 
+  /**
+   * An access unit for exclusive use in {@link #internComponents(URIComponentsAccessUnit)}.
+   */
+  protected URIComponentsAccessUnit uriComponentsAccessUnit = new URIComponentsAccessUnit(null);
+
   protected String[] internArray(String segment, int offset, int count, int hashCode)
   {
     stringArraySubstringAccessUnit.setValue(segment, offset, count, hashCode);
@@ -54,6 +59,15 @@ class StringAccessUnit extends URIPoolAccessUnitBase
     }
   }
 
+  /**
+   * Interns the URI composed from the components cached in the given access unit once the parse is complete.
+   * This can be specialized to defer adding the URI to the pool.
+   */
+  protected URI internComponents(URIComponentsAccessUnit accessUnit)
+  {
+    return pool.doIntern(false, accessUnit);
+  }
+
   /**
    * Creates an instance managed by this queue and pool.
    */
@@ -264,7 +278,8 @@ class StringAccessUnit extends URIPoolAccessUnitBase
       // There's a scheme, but it's not followed immediately by a /, so it's an opaque URI.
       //
       authority = intern(uri, i, length - i);
-      URI resultURI = pool.intern(false, URIComponentsAccessUnit.VALIDATE_NONE, false, scheme, authority, null, false, null, null);
+      uriComponentsAccessUnit.setValue(URIComponentsAccessUnit.VALIDATE_NONE, false, scheme, authority, null, false, null, null);
+      URI resultURI = internComponents(uriComponentsAccessUnit);
 
       // If something tries to add an entry for this access unit, we'd better be sure that the hash code is that of the transformed URI.
       //
@@ -377,15 +392,19 @@ class StringAccessUnit extends URIPoolAccessUnitBase
     }
 
     // If we're sure we have the right hash code (the scheme was not lower cased), we can use it, otherwise, we must compute a hash code.
+    // The parse is done without holding any lock, so the components are interned non-exclusively;
+    // the candidate URI is created without holding a lock and the lock is acquired only to add it.
     //
     URI resultURI;
     if (hasExpectedHashCode)
     {
-      resultURI = pool.intern(true, true, scheme, authority, device, absolutePath, segments, query, hashCode);
+      uriComponentsAccessUnit.setValue(true, scheme, authority, device, absolutePath, segments, query, hashCode);
+      resultURI = internComponents(uriComponentsAccessUnit);
     }
     else
     {
-      resultURI = pool.intern(true, URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, absolutePath, segments, query);
+      uriComponentsAccessUnit.setValue(URIComponentsAccessUnit.VALIDATE_NONE, true, scheme, authority, device, absolutePath, segments, query);
+      resultURI = internComponents(uriComponentsAccessUnit);
 
       // If something tries to add an entry for this access unit, we'd better be sure that the hash code is that of the transformed URI.
       //
@@ -410,7 +429,7 @@ class StringAccessUnit extends URIPoolAccessUnitBase
     for (; i < length; i++)
     {
       char c = s.charAt(i);
-      if (c == URI.SEGMENT_SEPARATOR || c == URI.SCHEME_SEPARATOR || c == URI.QUERY_SEPARATOR)
+      if (c <= URI.QUERY_SEPARATOR && (c == URI.SEGMENT_SEPARATOR || c == URI.SCHEME_SEPARATOR || c == URI.QUERY_SEPARATOR))
       {
         findTerminatingCharacter = c;
         break;
@@ -431,7 +450,7 @@ class StringAccessUnit extends URIPoolAccessUnitBase
     for (; i < length; i++)
     {
       char c = s.charAt(i);
-      if (c == URI.SEGMENT_SEPARATOR || c == URI.QUERY_SEPARATOR)
+      if (c <= URI.QUERY_SEPARATOR && (c == URI.SEGMENT_SEPARATOR || c == URI.QUERY_SEPARATOR))
       {
         findTerminatingCharacter = c;
         break;
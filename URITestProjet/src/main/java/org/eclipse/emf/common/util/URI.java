@@ -11,6 +11,12 @@
 package org.eclipse.emf.common.util;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.StringTokenizer;
@@ -136,6 +142,53 @@ public abstract class URI
    */
   protected static final URIPool POOL = new URIPool(CommonUtil.REFERENCE_CLEARING_QUEUE);
 
+  /**
+   * A pool for managing the {@link Fragment} instances of URIs with a fragment.
+   */
+  protected static final FragmentPool FRAGMENT_POOL = new FragmentPool(CommonUtil.REFERENCE_CLEARING_QUEUE);
+
+  /**
+   * Returns the pool of the current thread's {@link URIPoolContext context}, or the shared {@link #POOL} if there isn't one.
+   */
+  static URIPool pool()
+  {
+    return URIPoolContext.getPool();
+  }
+
+  /**
+   * Returns the fragment pool of the current thread's {@link URIPoolContext context}, or the shared {@link #FRAGMENT_POOL} if there isn't one.
+   */
+  static FragmentPool fragmentPool()
+  {
+    return URIPoolContext.getFragmentPool();
+  }
+
+  /**
+   * Returns the resolve cache of the current thread's {@link URIPoolContext context}, or the shared {@link #RESOLVE_CACHE} if there isn't one.
+   */
+  static URIPairCache resolveCache()
+  {
+    return URIPoolContext.getResolveCache();
+  }
+
+  /**
+   * Returns the deresolve cache of the current thread's {@link URIPoolContext context}, or the shared {@link #DERESOLVE_CACHE} if there isn't one.
+   */
+  static URIPairCache deresolveCache()
+  {
+    return URIPoolContext.getDeresolveCache();
+  }
+
+  /**
+   * A cache of the results of {@link #resolve(URI, boolean) resolving} a relative URI against a base URI.
+   */
+  protected static final URIPairCache RESOLVE_CACHE = new URIPairCache("ResolveCache", 1024);
+
+  /**
+   * A cache of the results of {@link #deresolve(URI, boolean, boolean, boolean) deresolving} an absolute URI against a base URI.
+   */
+  protected static final URIPairCache DERESOLVE_CACHE = new URIPairCache("DeresolveCache", 1024);
+
   // The lower-cased schemes that will be used to identify archive URIs.
   protected static final String[] ARCHIVE_SCHEMES;
 
@@ -203,6 +256,9 @@ public abstract class URI
   protected static final char ARCHIVE_IDENTIFIER = '!';
   protected static final String ARCHIVE_SEPARATOR = "!/";
 
+  // The encoding of the bytes parsed by createURI(byte[], int, int) and createURI(ByteBuffer).
+  protected static final Charset UTF_8 = Charset.forName("UTF-8");
+
   // Characters to use in escaping.
   protected static final char ESCAPE = '%';
   protected static final char[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
@@ -391,7 +447,7 @@ public abstract class URI
       throw new IllegalArgumentException("non-hierarchical archive URI");
     }
 
-    return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_ALL, false, scheme, opaquePart, null, false, null, null).appendFragment(fragment);
+    return pool().intern(false, URIComponentsAccessUnit.VALIDATE_ALL, false, scheme, opaquePart, null, false, null, null).appendFragment(fragment);
   }
 
   /**
@@ -422,7 +478,7 @@ public abstract class URI
       throw new IllegalArgumentException("archive URI with no path");
     }
 
-    return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_ALL, true, scheme, authority, device, false, NO_SEGMENTS, query).appendFragment(fragment);
+    return pool().intern(false, URIComponentsAccessUnit.VALIDATE_ALL, true, scheme, authority, device, false, NO_SEGMENTS, query).appendFragment(fragment);
   }
 
   /**
@@ -461,7 +517,7 @@ public abstract class URI
       }
     }
 
-    return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_ALL, true, scheme, authority, device, true, segments, query).appendFragment(fragment);
+    return pool().intern(false, URIComponentsAccessUnit.VALIDATE_ALL, true, scheme, authority, device, true, segments, query).appendFragment(fragment);
   }
 
   /**
@@ -479,7 +535,7 @@ public abstract class URI
    */
   public static URI createHierarchicalURI(String[] segments, String query, String fragment)
   {
-    return POOL.intern(false, URIComponentsAccessUnit.VALIDATE_ALL, true, null, null, null, false, segments, query).appendFragment(fragment);
+    return pool().intern(false, URIComponentsAccessUnit.VALIDATE_ALL, true, null, null, null, false, segments, query).appendFragment(fragment);
   }
 
   /**
@@ -508,6 +564,229 @@ public abstract class URI
     return createURIWithCache(uri);
   }
 
+  /**
+   * Static factory method that parses the characters in the specified range
+   * of the sequence as {@link #createURI(String) createURI} does.  If the URI
+   * is already in the pool, it's found without creating a string, or any
+   * other object; a string is created only if the URI must be parsed.
+   *
+   * @exception java.lang.IllegalArgumentException if any component parsed
+   * from the characters is not valid, as for {@link #createURI(String)
+   * createURI}.
+   */
+  public static URI createURI(CharSequence uri, int start, int end)
+  {
+    int hashCode = 0;
+    for (int i = start; i < end; ++i)
+    {
+      char character = uri.charAt(i);
+      if (character == FRAGMENT_SEPARATOR)
+      {
+        // Finish computing the hash code of the whole URI.
+        //
+        for (int j = i; j < end; ++j)
+        {
+          hashCode = 31 * hashCode + uri.charAt(j);
+        }
+        return createURIWithFragment(uri, start, i, end, hashCode);
+      }
+      hashCode = 31 * hashCode + character;
+    }
+    return pool().intern(uri, start, end);
+  }
+
+  /**
+   * Static factory method that parses the characters in the specified range
+   * of the array as {@link #createURI(CharSequence, int, int) createURI}
+   * does, e.g., directly from the buffer passed to a SAX content handler's
+   * <code>characters</code> method.
+   *
+   * @exception java.lang.IllegalArgumentException if any component parsed
+   * from the characters is not valid, as for {@link #createURI(String)
+   * createURI}.
+   */
+  public static URI createURI(char[] uri, int offset, int count)
+  {
+    for (int i = offset, end = offset + count; i < end; ++i)
+    {
+      if (uri[i] == FRAGMENT_SEPARATOR)
+      {
+        // Access the whole range as a sequence, so that a pooled URI is found without creating a string for the fragment.
+        //
+        URICharactersAccessUnit accessUnit = (URICharactersAccessUnit)pool().charactersAccessUnits.pop(false);
+        accessUnit.setValue(uri, offset, count);
+        try
+        {
+          return createURIWithFragment(accessUnit, 0, i - offset, count, accessUnit.hashCode);
+        }
+        finally
+        {
+          accessUnit.reset(false);
+        }
+      }
+    }
+    return pool().intern(uri, offset, count);
+  }
+
+  /**
+   * Static factory method that parses the UTF-8 encoded bytes in the
+   * specified range of the array as {@link #createURI(String) createURI}
+   * does.  If the URI is already in the pool, it's found without creating a
+   * string, or any other object; a string is created only if the URI must
+   * be parsed.  Malformed bytes are
+   * decoded as replacement characters, just as by {@link
+   * String#String(byte[], int, int, Charset) String}.
+   *
+   * @exception java.lang.IllegalArgumentException if any component parsed
+   * from the bytes is not valid, as for {@link #createURI(String)
+   * createURI}.
+   */
+  public static URI createURI(byte[] bytes, int offset, int length)
+  {
+    // The fragment separator is ASCII, so it can't be part of a multi-byte character.
+    //
+    for (int i = offset, end = offset + length; i < end; ++i)
+    {
+      if (bytes[i] == FRAGMENT_SEPARATOR)
+      {
+        BytesAccessUnit accessUnit = (BytesAccessUnit)pool().bytesAccessUnits.pop(false);
+        try
+        {
+          return accessUnit.setValue(bytes, offset, length) ? createURIWithFragment(accessUnit) : createURI(accessUnit.decode());
+        }
+        finally
+        {
+          accessUnit.reset(false);
+        }
+      }
+    }
+    return pool().intern(bytes, offset, length);
+  }
+
+  /**
+   * Static factory method that parses the remaining UTF-8 encoded bytes of
+   * the buffer as {@link #createURI(byte[], int, int) createURI} does,
+   * without changing the buffer's position.
+   *
+   * @exception java.lang.IllegalArgumentException if any component parsed
+   * from the bytes is not valid, as for {@link #createURI(String)
+   * createURI}.
+   */
+  public static URI createURI(ByteBuffer buffer)
+  {
+    if (buffer.hasArray())
+    {
+      return createURI(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    }
+    else
+    {
+      int position = buffer.position();
+      for (int i = position, end = buffer.limit(); i < end; ++i)
+      {
+        if (buffer.get(i) == FRAGMENT_SEPARATOR)
+        {
+          BytesAccessUnit accessUnit = (BytesAccessUnit)pool().bytesAccessUnits.pop(false);
+          try
+          {
+            return accessUnit.setValue(buffer) ? createURIWithFragment(accessUnit) : createURI(accessUnit.decode());
+          }
+          finally
+          {
+            accessUnit.reset(false);
+          }
+        }
+      }
+      return pool().intern(buffer);
+    }
+  }
+
+  /**
+   * Static factory method that parses each of the given URI strings as
+   * {@link #createURI(String) createURI} does, returning an array of the
+   * resulting URIs in the same order.  A <code>null</code> string yields a
+   * <code>null</code> URI.  This is equivalent to calling
+   * <code>createURI</code> for each string, but it's faster for a large
+   * number of strings: the strings that have already been interned are found
+   * in the order of their position in the pool, the others are parsed
+   * without locking the pool, and the pool is locked just once to add all
+   * the newly parsed URIs.
+   *
+   * @exception java.lang.IllegalArgumentException if any component parsed
+   * from any of the <code>uris</code> is not valid, as for {@link
+   * #createURI(String) createURI}.
+   */
+  public static URI[] createURIs(String[] uris)
+  {
+    int length = uris.length;
+
+    // Within a scope, each URI is found in or added to the scope's table, just as by createURI.
+    //
+    URIScope scope = URIScope.getCurrentScope();
+    if (scope != null)
+    {
+      URI[] result = new URI[length];
+      for (int i = 0; i < length; ++i)
+      {
+        String uri = uris[i];
+        if (uri != null)
+        {
+          result[i] = scope.intern(uri, uri.indexOf(FRAGMENT_SEPARATOR));
+        }
+      }
+      return result;
+    }
+
+    // Split off the fragments, copying the strings only if there are any.
+    //
+    String[] bases = uris;
+    for (int i = 0; i < length; ++i)
+    {
+      String uri = uris[i];
+      if (uri != null)
+      {
+        int index = uri.indexOf(FRAGMENT_SEPARATOR);
+        if (index != -1)
+        {
+          if (bases == uris)
+          {
+            bases = uris.clone();
+          }
+          bases[i] = uri.substring(0, index);
+        }
+      }
+    }
+
+    URI[] result = new URI[length];
+    pool().intern(bases, result);
+
+    if (bases != uris)
+    {
+      for (int i = 0; i < length; ++i)
+      {
+        String base = bases[i];
+        if (base != uris[i])
+        {
+          result[i] = result[i].appendFragment(uris[i].substring(base.length() + 1));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Static factory method that parses each of the given URI strings as
+   * {@link #createURIs(String[]) createURIs} does, returning a fixed-size list
+   * of the resulting URIs in the iteration order of the collection.
+   *
+   * @exception java.lang.IllegalArgumentException if any component parsed
+   * from any of the <code>uris</code> is not valid, as for {@link
+   * #createURI(String) createURI}.
+   */
+  public static List<URI> createURIs(Collection<String> uris)
+  {
+    return Arrays.asList(createURIs(uris.toArray(new String[uris.size()])));
+  }
+
   /**
    * Static factory method that encodes and parses the given URI string.
    * Appropriate encoding is performed for each component of the URI.
@@ -628,10 +907,49 @@ public abstract class URI
   public static URI createURIWithCache(String uri)
   {
     int index = uri.indexOf(FRAGMENT_SEPARATOR);
-    return
-      index == -1 ?
-        POOL.intern(uri) :
-        POOL.intern(uri.substring(0, index)).appendFragment(uri.substring(index + 1));
+    URIScope scope = URIScope.getCurrentScope();
+    return scope == null ? createPooledURI(uri, index) : scope.intern(uri, index);
+  }
+
+  // Returns the pooled URI for the string, which has its fragment separator, if it has one, at the given index.
+  //
+  static URI createPooledURI(String uri, int index)
+  {
+    return index == -1 ? pool().intern(uri) : createURIWithFragment(uri, 0, index, uri.length(), uri.hashCode());
+  }
+
+  /**
+   * Opens a {@link URIScope scope} for the calling thread,
+   * within which the URIs that the thread creates from strings are held strongly until the scope is {@link URIScope#close() closed}.
+   * That includes the URIs created by {@link #createURI(String) createURI} and {@link #createURIs(String[]) createURIs},
+   * but not those created from a range of characters or bytes, which are pooled as usual.
+   * This suits a batch job that creates a great many URIs that all become garbage together at its end.
+   */
+  public static URIScope openScope()
+  {
+    return new URIScope();
+  }
+
+  // Returns the URI for the characters in the given range of the sequence, which has its fragment separator at the given index and has the given hash code.
+  // A pooled URI is found without creating any objects.
+  //
+  private static URI createURIWithFragment(CharSequence uri, int start, int index, int end, int hashCode)
+  {
+    URI result = fragmentPool().find(uri, start, index, end, hashCode);
+    return result == null ? fragmentPool().intern(pool().intern(uri, start, index), uri, index + 1, end, hashCode) : result;
+  }
+
+  // Returns the URI for the decoded characters of the access unit, which contain the fragment separator.
+  // Its index in the characters generally differs from its index in the bytes, so it's found by searching the characters.
+  //
+  private static URI createURIWithFragment(BytesAccessUnit accessUnit)
+  {
+    int index = 0;
+    while (accessUnit.charAt(index) != FRAGMENT_SEPARATOR)
+    {
+      ++index;
+    }
+    return createURIWithFragment(accessUnit, 0, index, accessUnit.length(), accessUnit.hashCode);
   }
 
   /**
@@ -665,7 +983,7 @@ public abstract class URI
    */
   public static URI createFileURI(String pathName)
   {
-    return POOL.internFile(pathName);
+    return pool().internFile(pathName);
   }
 
   /**
@@ -740,7 +1058,7 @@ public abstract class URI
    */
   public static URI createPlatformResourceURI(String pathName, boolean encode)
   {
-    return POOL.intern(SEGMENT_RESOURCE, pathName, encode);
+    return pool().intern(SEGMENT_RESOURCE, pathName, encode);
   }
 
   /**
@@ -778,7 +1096,7 @@ public abstract class URI
    */
   public static URI createPlatformPluginURI(String pathName, boolean encode)
   {
-    return POOL.intern(SEGMENT_PLUGIN, pathName, encode);
+    return pool().intern(SEGMENT_PLUGIN, pathName, encode);
   }
 
   // Splits the fragment into a segment sequence if it starts with a /, i.e., if it's used as a fragment path by EMF's resource implementation.
@@ -1058,7 +1376,22 @@ public abstract class URI
   //
   protected static boolean contains(String s, long highBitmask, long lowBitmask)
   {
-    for (int i = 0, len = s.length(); i < len; i++)
+    int len = s.length();
+    if (highBitmask == 0)
+    {
+      // The separator sets used for validation are all below 64, so the
+      // letters that make up most of a URI are rejected by one comparison.
+      // A long shift uses only the low six bits of its distance, so the
+      // character selects its own bit of the mask.
+      //
+      for (int i = 0; i < len; i++)
+      {
+        char c = s.charAt(i);
+        if (c < 64 && (lowBitmask >>> c & 1L) != 0) return true;
+      }
+      return false;
+    }
+    for (int i = 0; i < len; i++)
     {
       if (matches(s.charAt(i), highBitmask, lowBitmask)) return true;
     }
@@ -1432,6 +1765,15 @@ public abstract class URI
     return Collections.emptyList();
   }
 
+  /**
+   * Returns an unmodifiable list containing the {@link #decode(String) decoded} form of each of the same segments as {@link #segmentsList()}.
+   * The decoded segments are computed lazily and cached weakly, so repeated calls generally return the same list without decoding or allocating.
+   */
+  public List<String> decodedSegmentsList()
+  {
+    return Collections.emptyList();
+  }
+
   /**
    * Returns the number of elements in the segment array that would be
    * returned by {@link #segments segments}.
@@ -1554,17 +1896,7 @@ public abstract class URI
     }
     else
     {
-      if (POOL.externalQueue != null)
-      {
-        final Fragment result = new Fragment(0, this, fragment);
-        new LazyFragmentInitializer(result, POOL.externalQueue, fragment);
-        return result;
-      }
-      else
-      {
-        int hashCode = (this.hashCode * 31+ FRAGMENT_SEPARATOR) * CommonUtil.powerOf31(fragment.length()) + fragment.hashCode();
-        return new Fragment(hashCode, this, splitInternFragment(fragment));
-      }
+      return fragmentPool().intern(this, fragment, false);
     }
   }
 
@@ -1578,8 +1910,7 @@ public abstract class URI
     }
     else
     {
-      int hashCode = (this.hashCode * 31 + FRAGMENT_SEPARATOR) * CommonUtil.powerOf31(fragment.length()) + fragment.hashCode();
-      return new Fragment(hashCode, this, fragment);
+      return fragmentPool().intern(this, fragment, true);
     }
   }
 
@@ -1688,12 +2019,46 @@ public abstract class URI
   }
 
   // Returns whether the string representation of the URI fully matches the given string.
+  // It's matched as a range of characters, so the matching rules of each kind of URI are defined only by the range matching.
   //
   protected boolean matches(String string)
+  {
+    return matches(string, 0, string.length());
+  }
+
+  // Used to match a URI against the characters in the given range of the sequence, which doesn't contain the fragment separator.
+  //
+  protected boolean matches(CharSequence characters, int start, int end)
   {
     return false;
   }
 
+  // Returns whether the characters in the range from the index to the end start with the given string.
+  //
+  protected static boolean startsWith(CharSequence characters, int index, int end, String string)
+  {
+    int length = string.length();
+    if (end - index < length)
+    {
+      return false;
+    }
+    if (characters instanceof String)
+    {
+      // A whole string, e.g., one matched against a URI's cached string, is compared with equals, which is fastest, especially when it's the very same string.
+      //
+      String other = (String)characters;
+      return index == 0 && length == other.length() ? other.equals(string) : other.startsWith(string, index);
+    }
+    for (int i = 0; i < length; ++i)
+    {
+      if (characters.charAt(index + i) != string.charAt(i))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
   // Used to match a URI against the specified components.
   //
   protected boolean matches(int validate, boolean hierarchical, String scheme, String authority, String device, boolean absolutePath, String[] segments, String query)
@@ -1918,6 +2283,27 @@ public abstract class URI
       result != null && result.length() > 0 && result.charAt(0) == SEGMENT_SEPARATOR ? "%2F" + result.substring(1) : result;
   }
 
+  /**
+   * Appends the {@link #encodeOpaquePart(String, boolean) encoding} of an opaque part to the given appendable,
+   * copying the runs of characters that don't need escaping directly from the string.
+   * Nothing is appended for a <code>null</code> value.
+   */
+  public static void encodeOpaquePart(String value, boolean ignoreEscaped, Appendable result) throws IOException
+  {
+    if (value != null)
+    {
+      if (value.length() > 0 && value.charAt(0) == SEGMENT_SEPARATOR)
+      {
+        result.append("%2F");
+        encode(value, 1, URIC_HI, URIC_LO, ignoreEscaped, result);
+      }
+      else
+      {
+        encode(value, 0, URIC_HI, URIC_LO, ignoreEscaped, result);
+      }
+    }
+  }
+
   /**
    * Encodes a string so as to produce a valid authority, as defined by the
    * RFC.  All excluded characters, such as space and <code>#</code>,
@@ -1934,6 +2320,16 @@ public abstract class URI
     return encode(value, SEGMENT_CHAR_HI, SEGMENT_CHAR_LO, ignoreEscaped);
   }
 
+  /**
+   * Appends the {@link #encodeAuthority(String, boolean) encoding} of an authority to the given appendable,
+   * copying the runs of characters that don't need escaping directly from the string.
+   * Nothing is appended for a <code>null</code> value.
+   */
+  public static void encodeAuthority(String value, boolean ignoreEscaped, Appendable result) throws IOException
+  {
+    if (value != null) encode(value, 0, SEGMENT_CHAR_HI, SEGMENT_CHAR_LO, ignoreEscaped, result);
+  }
+
   /**
    * Encodes a string so as to produce a valid segment, as defined by the
    * RFC.  All excluded characters, such as space and <code>#</code>,
@@ -1950,6 +2346,16 @@ public abstract class URI
     return encode(value, SEGMENT_CHAR_HI, SEGMENT_CHAR_LO, ignoreEscaped);
   }
 
+  /**
+   * Appends the {@link #encodeSegment(String, boolean) encoding} of a segment to the given appendable,
+   * copying the runs of characters that don't need escaping directly from the string.
+   * Nothing is appended for a <code>null</code> value.
+   */
+  public static void encodeSegment(String value, boolean ignoreEscaped, Appendable result) throws IOException
+  {
+    if (value != null) encode(value, 0, SEGMENT_CHAR_HI, SEGMENT_CHAR_LO, ignoreEscaped, result);
+  }
+
   /**
    * Encodes a string so as to produce a valid query, as defined by the RFC.
    * Only excluded characters, such as space and <code>#</code>, are escaped.
@@ -1965,6 +2371,16 @@ public abstract class URI
     return encode(value, URIC_HI, URIC_LO, ignoreEscaped);
   }
 
+  /**
+   * Appends the {@link #encodeQuery(String, boolean) encoding} of a query to the given appendable,
+   * copying the runs of characters that don't need escaping directly from the string.
+   * Nothing is appended for a <code>null</code> value.
+   */
+  public static void encodeQuery(String value, boolean ignoreEscaped, Appendable result) throws IOException
+  {
+    if (value != null) encode(value, 0, URIC_HI, URIC_LO, ignoreEscaped, result);
+  }
+
   /**
    * Encodes a string so as to produce a valid fragment, as defined by the
    * RFC.  Only excluded characters, such as space and <code>#</code>, are
@@ -1981,6 +2397,16 @@ public abstract class URI
     return encode(value, URIC_HI, URIC_LO, ignoreEscaped);
   }
 
+  /**
+   * Appends the {@link #encodeFragment(String, boolean) encoding} of a fragment to the given appendable,
+   * copying the runs of characters that don't need escaping directly from the string.
+   * Nothing is appended for a <code>null</code> value.
+   */
+  public static void encodeFragment(String value, boolean ignoreEscaped, Appendable result) throws IOException
+  {
+    if (value != null) encode(value, 0, URIC_HI, URIC_LO, ignoreEscaped, result);
+  }
+
   // Encodes a complete URI, optionally leaving % characters unescaped when
   // beginning a valid three-character escape sequence.  We can either treat
   // the first or # as a fragment separator, or encode them all.
@@ -1988,7 +2414,7 @@ public abstract class URI
   {
     if (uri == null) return null;
 
-    StringBuffer result = new StringBuffer();
+    StringBuilder result = new StringBuilder(uri.length() + 16);
 
     int i = uri.indexOf(SCHEME_SEPARATOR);
     if (i != -1)
@@ -2032,26 +2458,71 @@ public abstract class URI
   {
     if (value == null) return null;
 
-    StringBuffer result = null;
+    // Scan for the first character that must be escaped; most strings have
+    // none and are returned as is.
+    //
+    int len = value.length();
+    int i = 0;
+    while (i < len && !isEscapeRequired(value, i, highBitmask, lowBitmask, ignoreEscaped)) i++;
+    if (i == len) return value;
 
-    for (int i = 0, len = value.length(); i < len; i++)
+    // Count the remaining escapes so that the result can be filled exactly
+    // once, copying the runs of characters between escapes in bulk.
+    //
+    int escapes = 1;
+    for (int j = i + 1; j < len; j++)
     {
-      char c = value.charAt(i);
-
-      if (!matches(c, highBitmask, lowBitmask) && c < 160 && (!ignoreEscaped || !isEscaped(value, i)))
+      if (isEscapeRequired(value, j, highBitmask, lowBitmask, ignoreEscaped)) escapes++;
+    }
+    char[] result = new char[len + 2 * escapes];
+    int start = 0;
+    int index = 0;
+    for (; i < len; i++)
+    {
+      if (isEscapeRequired(value, i, highBitmask, lowBitmask, ignoreEscaped))
       {
-        if (result == null)
-        {
-          result = new StringBuffer(value.substring(0, i));
-        }
-        appendEscaped(result, (byte)c);
+        value.getChars(start, i, result, index);
+        index += i - start;
+        char c = value.charAt(i);
+        result[index++] = ESCAPE;
+        result[index++] = HEX_DIGITS[(c >> 4) & 0x0F];
+        result[index++] = HEX_DIGITS[c & 0x0F];
+        start = i + 1;
       }
-      else if (result != null)
+    }
+    value.getChars(start, len, result, index);
+    return new String(result);
+  }
+
+  // Appends the encoding of the given string, from the given start index, to
+  // the appendable, as encode(String, long, long, boolean) does.
+  protected static void encode(String value, int start, long highBitmask, long lowBitmask, boolean ignoreEscaped, Appendable result) throws IOException
+  {
+    int len = value.length();
+    for (int i = start; i < len; i++)
+    {
+      if (isEscapeRequired(value, i, highBitmask, lowBitmask, ignoreEscaped))
       {
-        result.append(c);
+        result.append(value, start, i);
+        char c = value.charAt(i);
+        result.append(ESCAPE).append(HEX_DIGITS[(c >> 4) & 0x0F]).append(HEX_DIGITS[c & 0x0F]);
+        start = i + 1;
       }
     }
-    return result == null ? value : result.toString();
+    result.append(value, start, len);
+  }
+
+  // Tests whether the character at index i of the given string must be
+  // escaped by encode(String, long, long, boolean).  ASCII characters are
+  // tested against the mask that covers them with a single shift.
+  private static boolean isEscapeRequired(String value, int i, long highBitmask, long lowBitmask, boolean ignoreEscaped)
+  {
+    char c = value.charAt(i);
+    if (c < 128 ? ((c < 64 ? lowBitmask : highBitmask) >>> c & 1L) == 0 : c < 160)
+    {
+      return !ignoreEscaped || !isEscaped(value, i);
+    }
+    return false;
   }
 
   // Tests whether an escape occurs in the given string, starting at index i.
@@ -2092,95 +2563,145 @@ public abstract class URI
     }
     else
     {
-      StringBuilder result = new StringBuilder(value.substring(0, i));
-      byte [] bytes = new byte[4];
-      int receivedBytes = 0;
-      int expectedBytes = 0;
-      for (int len = value.length(); i < len; i++)
+      // Decoding never lengthens a string, so the characters after the first
+      // escape are decoded directly into an array of at most that length.
+      //
+      int len = value.length();
+      char[] result = new char[len];
+      value.getChars(0, i, result, 0);
+      int count = decode(value, i, result, i);
+      return new String(result, 0, count);
+    }
+  }
+
+  /**
+   * Appends the {@link #decode(String) decoding} of the given string to the given appendable.
+   * Nothing is appended for a <code>null</code> value.
+   */
+  public static void decode(String value, Appendable result) throws IOException
+  {
+    if (value == null) return;
+
+    int i = value.indexOf('%');
+    if (i < 0)
+    {
+      result.append(value);
+    }
+    else
+    {
+      result.append(value, 0, i);
+      char[] characters = new char[value.length() - i];
+      int count = decode(value, i, characters, 0);
+      result.append(CharBuffer.wrap(characters, 0, count));
+    }
+  }
+
+  // Decodes the given string, from the given index, into the given array,
+  // starting at the given offset, and returns the offset of the end of the
+  // decoded characters.  The array must have room for the remaining
+  // characters of the string.
+  protected static int decode(String value, int i, char[] result, int offset)
+  {
+    // The bytes of a UTF-8 encoded character are received into an int, most
+    // significant byte first, rather than into an array.
+    //
+    int index = offset;
+    int bytes = 0;
+    int receivedBytes = 0;
+    int expectedBytes = 0;
+    for (int len = value.length(); i < len; i++)
+    {
+      if (isEscaped(value, i))
       {
-        if (isEscaped(value, i))
-        {
-          char character = unescape(value.charAt(i + 1), value.charAt(i + 2));
-          i += 2;
+        char character = unescape(value.charAt(i + 1), value.charAt(i + 2));
+        i += 2;
 
-          if (expectedBytes > 0)
+        if (expectedBytes > 0)
+        {
+          if ((character & 0xC0) == 0x80)
           {
-            if ((character & 0xC0) == 0x80)
-            {
-              bytes[receivedBytes++] = (byte)character;
-            }
-            else
-            {
-              expectedBytes = 0;
-            }
+            bytes = bytes << 8 | character;
+            receivedBytes++;
           }
-          else if (character >= 0x80)
+          else
           {
-            if ((character & 0xE0) == 0xC0)
-            {
-              bytes[receivedBytes++] = (byte)character;
-              expectedBytes = 2;
-            }
-            else if ((character & 0xF0) == 0xE0)
-            {
-              bytes[receivedBytes++] = (byte)character;
-              expectedBytes = 3;
-            }
-            else if ((character & 0xF8) == 0xF0)
-            {
-              bytes[receivedBytes++] = (byte)character;
-              expectedBytes = 4;
-            }
+            expectedBytes = 0;
+          }
+        }
+        else if (character >= 0x80)
+        {
+          if ((character & 0xE0) == 0xC0)
+          {
+            expectedBytes = 2;
+          }
+          else if ((character & 0xF0) == 0xE0)
+          {
+            expectedBytes = 3;
+          }
+          else if ((character & 0xF8) == 0xF0)
+          {
+            expectedBytes = 4;
           }
-
           if (expectedBytes > 0)
           {
-            if (receivedBytes == expectedBytes)
-            {
-              switch (receivedBytes)
-              {
-                case 2:
-                {
-                  result.append((char)((bytes[0] & 0x1F) << 6 | bytes[1] & 0x3F));
-                  break;
-                }
-                case 3:
-                {
-                  result.append((char)((bytes[0] & 0xF) << 12 | (bytes[1] & 0X3F) << 6 | bytes[2] & 0x3F));
-                  break;
-                }
-                case 4:
-                {
-                  result.appendCodePoint((bytes[0] & 0x7) << 18 | (bytes[1] & 0X3F) << 12 | (bytes[2] & 0X3F) << 6 | bytes[3] & 0x3F);
-                  break;
-                }
-              }
-              receivedBytes = 0;
-              expectedBytes = 0;
-            }
+            bytes = character;
+            receivedBytes = 1;
           }
-          else
+        }
+
+        if (expectedBytes > 0)
+        {
+          if (receivedBytes == expectedBytes)
           {
-            for (int j = 0; j < receivedBytes; ++j)
+            switch (receivedBytes)
             {
-              result.append((char)bytes[j]);
+              case 2:
+              {
+                result[index++] = (char)((bytes >> 8 & 0x1F) << 6 | bytes & 0x3F);
+                break;
+              }
+              case 3:
+              {
+                result[index++] = (char)((bytes >> 16 & 0xF) << 12 | (bytes >> 8 & 0x3F) << 6 | bytes & 0x3F);
+                break;
+              }
+              case 4:
+              {
+                index += Character.toChars((bytes >> 24 & 0x7) << 18 | (bytes >> 16 & 0x3F) << 12 | (bytes >> 8 & 0x3F) << 6 | bytes & 0x3F, result, index);
+                break;
+              }
             }
             receivedBytes = 0;
-            result.append(character);
+            expectedBytes = 0;
           }
         }
         else
         {
-          for (int j = 0; j < receivedBytes; ++j)
-          {
-            result.append((char)bytes[j]);
-          }
+          index = appendBytes(result, index, bytes, receivedBytes);
           receivedBytes = 0;
-          result.append(value.charAt(i));
+          result[index++] = character;
         }
       }
-      return result.toString();
+      else
+      {
+        index = appendBytes(result, index, bytes, receivedBytes);
+        receivedBytes = 0;
+        result[index++] = value.charAt(i);
+      }
+    }
+    return index;
+  }
+
+  // Appends each of the given number of bytes, received into the low-order
+  // bytes of the int, as a character, just as a signed byte is cast to a
+  // char, and returns the index following them.
+  private static int appendBytes(char[] result, int index, int bytes, int count)
+  {
+    for (int j = count - 1; j >= 0; --j)
+    {
+      result[index++] = (char)(byte)(bytes >> 8 * j);
     }
+    return index;
   }
 
   // Returns the character encoded by % followed by the two given hex digits,
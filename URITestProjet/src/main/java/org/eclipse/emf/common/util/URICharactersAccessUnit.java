@@ -0,0 +1,110 @@
+package org.eclipse.emf.common.util;
+
+/**
+ * An access unit for access via a range of a character array.
+ * It acts as the {@link CharSequence} of those characters so that a URI can be {@link URI#matches(CharSequence, int, int) matched} in place, without creating a string.
+ */
+class URICharactersAccessUnit extends URIPoolAccessUnitBase implements CharSequence
+{
+  /**
+   * The characters being accessed.
+   */
+  protected char[] characters;
+
+  /**
+   * The offset of the characters being accessed.
+   */
+  protected int offset;
+
+  /**
+   * The count of the characters being accessed.
+   */
+  protected int count;
+
+  /**
+   * Creates an instance managed by the given queue.
+   */
+  public URICharactersAccessUnit(Queue<URI> queue)
+  {
+    super(queue);
+  }
+
+  /**
+   * Caches the parameters and computes the hash code.
+   */
+  protected void setValue(char[] characters, int offset, int count)
+  {
+    this.characters = characters;
+    this.offset = offset;
+    this.count = count;
+
+    int hashCode = 0;
+    for (int i = offset, end = offset + count; i < end; ++i)
+    {
+      hashCode = 31 * hashCode + characters[i];
+    }
+    this.hashCode = hashCode;
+  }
+
+  @Override
+  protected boolean matches(URI value)
+  {
+    // The string of a pooled URI is generally cached, so compare directly against its characters.
+    //
+    String cachedString = value.getCachedString();
+    return cachedString == null ? value.matches(this, 0, count) : matches(cachedString);
+  }
+
+  /**
+   * Returns whether the characters are the same as those of the string.
+   */
+  protected boolean matches(String string)
+  {
+    int count = this.count;
+    if (string.length() != count)
+    {
+      return false;
+    }
+    char[] characters = this.characters;
+    for (int i = 0, j = offset; i < count; ++i, ++j)
+    {
+      if (characters[j] != string.charAt(i))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int length()
+  {
+    return count;
+  }
+
+  public char charAt(int index)
+  {
+    return characters[offset + index];
+  }
+
+  public CharSequence subSequence(int start, int end)
+  {
+    return new String(characters, offset + start, end - start);
+  }
+
+  /**
+   * Returns the characters as a new string.
+   */
+  @Override
+  public String toString()
+  {
+    return new String(characters, offset, count);
+  }
+
+  @Override
+  public void reset(boolean isExclusive)
+  {
+    characters = null;
+    count = 0;
+    super.reset(isExclusive);
+  }
+}
@@ -102,19 +102,34 @@ class URIComponentsAccessUnit extends URIPoolAccessUnitBase
     this.hashCode = hashCode;
   }
 
+  /**
+   * Caches the components of the given URI, which must not have a fragment.
+   */
+  protected void setValue(URI uri)
+  {
+    if (uri.isHierarchical())
+    {
+      Hierarchical hierarchical = (Hierarchical)uri;
+      setValue(true, hierarchical.scheme, hierarchical.authority, hierarchical.device, hierarchical.hasAbsolutePath(), hierarchical.segments, hierarchical.query, uri.hashCode());
+    }
+    else
+    {
+      setValue(false, uri.scheme(), uri.opaquePart(), null, false, null, null, uri.hashCode());
+    }
+  }
+
   /**
    * Caches the parameters and computes the hash code.
    */
   protected void setValue(int validate, boolean hierarchical, String scheme, String authority, String device, boolean absolutePath, String[] segments, String query)
   {
-    int hashCode = 0;
-    if (scheme != null)
+    if (scheme != null && validate == VALIDATE_ALL)
     {
-      if (validate == VALIDATE_ALL)
-      {
-        scheme = intern(true, scheme);
-      }
-      hashCode = scheme.hashCode() * 31 + URI.SCHEME_SEPARATOR;
+      scheme = intern(true, scheme);
+    }
+    if (hierarchical && segments == null)
+    {
+      segments = URI.NO_SEGMENTS;
     }
 
     this.validate = validate;
@@ -125,16 +140,23 @@ class URIComponentsAccessUnit extends URIPoolAccessUnitBase
     this.absolutePath = absolutePath;
     this.segments = segments;
     this.query = query;
+    this.hashCode = hashCode(hierarchical, scheme, authority, device, absolutePath, segments, query);
+  }
 
-    if (hierarchical)
+  /**
+   * Returns the hash code of the URI with the given components, i.e., the hash code of its string representation, composed from the hash codes of the components.
+   * For a non-hierarchical URI, the <code>authority</code> is the opaque part.
+   */
+  static int hashCode(boolean hierarchical, String scheme, String authority, String device, boolean absolutePath, String[] segments, String query)
+  {
+    int hashCode = 0;
+    if (scheme != null)
     {
-      if (segments == null)
-      {
-        segments = URI.NO_SEGMENTS;
-      }
-
-      this.segments = segments;
+      hashCode = scheme.hashCode() * 31 + URI.SCHEME_SEPARATOR;
+    }
 
+    if (hierarchical)
+    {
       if (authority != null)
       {
         if (!URI.isArchiveScheme(scheme)) hashCode = hashCode * 961 + URI.AUTHORITY_SEPARATOR_HASH_CODE;
@@ -170,8 +192,7 @@ class URIComponentsAccessUnit extends URIPoolAccessUnitBase
     {
       hashCode = hashCode * CommonUtil.powerOf31(authority.length()) + authority.hashCode();
     }
-
-    this.hashCode = hashCode;
+    return hashCode;
   }
 
   @Override
@@ -0,0 +1,174 @@
+package org.eclipse.emf.common.util;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * A bounded cache of the results of an operation on a pair of {@link URI URIs}, such as {@link URI#resolve(URI, boolean) resolving} a relative URI against a base URI.
+ * Because URIs are interned, an entry is keyed by the identities of the two URIs, along with the options of the operation.
+ * <p>
+ * The cache is set associative: each pair hashes to a set of {@link #WAYS} slots,
+ * and when all the slots of a set are in use, the CLOCK algorithm picks the one to replace,
+ * i.e., the first one that the set's hand finds hasn't been used since the hand last passed it.
+ * </p>
+ * <p>
+ * The URIs, including the result, are held only weakly, so the cache never pins them;
+ * a slot whose URIs have been garbage collected is simply reused.
+ * Entries are immutable, apart from their reference bit, so {@link #get(URI, URI, int) lookups} never lock,
+ * and a race between concurrent {@link #put(URI, URI, int, URI) updates} at worst loses an entry.
+ * </p>
+ */
+final class URIPairCache
+{
+  /**
+   * The number of slots in each set.
+   */
+  protected static final int WAYS = 4;
+
+  /**
+   * An entry that weakly references the first URI of the pair, along with the second URI and the result.
+   */
+  protected static final class Entry extends WeakReference<URI>
+  {
+    /**
+     * The second URI of the pair.
+     */
+    protected final WeakReference<URI> second;
+
+    /**
+     * The options of the operation.
+     */
+    protected final int options;
+
+    /**
+     * The result of the operation.
+     */
+    protected final WeakReference<URI> result;
+
+    /**
+     * Whether the entry has been used since the CLOCK hand last passed it.
+     */
+    protected boolean referenced;
+
+    public Entry(URI first, URI second, int options, URI result)
+    {
+      super(first);
+      this.second = new WeakReference<URI>(second);
+      this.options = options;
+      this.result = new WeakReference<URI>(result);
+    }
+
+    /**
+     * Returns whether any of the URIs have been garbage collected.
+     */
+    protected boolean isCleared()
+    {
+      return get() == null || second.get() == null || result.get() == null;
+    }
+  }
+
+  /**
+   * The slots, {@link #WAYS} per set, or <code>null</code> if the cache is disabled.
+   */
+  protected final Entry[] entries;
+
+  /**
+   * The mask for the index of a set.
+   */
+  protected final int mask;
+
+  /**
+   * The position of the CLOCK hand within each set.
+   */
+  protected final byte[] hands;
+
+  /**
+   * Creates a cache with the capacity specified by the <code>capacity</code> system property, read like those of {@link Pool#getIntegerProperty(String, String, int)},
+   * for the cache with the given name, rounded up to a power of two.
+   * A capacity of zero disables the cache.
+   */
+  public URIPairCache(String name, int defaultCapacity)
+  {
+    int capacity = Pool.getIntegerProperty(name, "capacity", defaultCapacity);
+    if (capacity <= 0)
+    {
+      entries = null;
+      mask = 0;
+      hands = null;
+    }
+    else
+    {
+      int sets = 1;
+      while (sets * WAYS < capacity && sets < 1 << 24)
+      {
+        sets <<= 1;
+      }
+      entries = new Entry[sets * WAYS];
+      mask = sets - 1;
+      hands = new byte[sets];
+    }
+  }
+
+  /**
+   * Returns the index of the set for the pair and options.
+   */
+  protected int set(URI first, URI second, int options)
+  {
+    int hashCode = (first.hashCode() * 31 + second.hashCode()) * 31 + options;
+    return (hashCode ^ hashCode >>> 16) & mask;
+  }
+
+  /**
+   * Returns the cached result of the operation with the given options on the given pair, or <code>null</code> if it's not cached.
+   */
+  public URI get(URI first, URI second, int options)
+  {
+    Entry[] entries = this.entries;
+    if (entries != null)
+    {
+      for (int i = set(first, second, options) * WAYS, end = i + WAYS; i < end; ++i)
+      {
+        Entry entry = entries[i];
+        if (entry != null && entry.get() == first && entry.second.get() == second && entry.options == options)
+        {
+          URI result = entry.result.get();
+          if (result != null)
+          {
+            entry.referenced = true;
+            return result;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Caches the result of the operation with the given options on the given pair.
+   */
+  public void put(URI first, URI second, int options, URI result)
+  {
+    Entry[] entries = this.entries;
+    if (entries != null)
+    {
+      int set = set(first, second, options);
+      int base = set * WAYS;
+      int hand = hands[set];
+
+      // Each referenced entry gets a second chance, so at most two sweeps of the set are needed,
+      // though a concurrent update could set a bit behind the hand, so the sweep is bounded.
+      //
+      for (int i = 0; i < 2 * WAYS; ++i)
+      {
+        Entry entry = entries[base + hand];
+        if (entry == null || !entry.referenced || entry.isCleared())
+        {
+          break;
+        }
+        entry.referenced = false;
+        hand = (hand + 1) & (WAYS - 1);
+      }
+      entries[base + hand] = new Entry(first, second, options, result);
+      hands[set] = (byte)((hand + 1) & (WAYS - 1));
+    }
+  }
+}
@@ -3,6 +3,7 @@ package org.eclipse.emf.common.util;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 
 /**
    * A pool for caching URIs.
@@ -18,7 +19,32 @@ import java.lang.ref.WeakReference;
 
     public URIPool(ReferenceQueue<Object> queue)
     {
-      super(1031, null, queue);
+      this(queue, getIntegerProperty("URIPool", "initialCapacity", 1031), getIntegerProperty("URIPool", "concurrencyLevel", 1), getOptionsProperty("URIPool"), getLoadFactorProperty("URIPool"));
+      retentionPolicy = getRetentionPolicyProperty("URIPool");
+    }
+
+    /**
+     * Creates an instance that is {@link #isStriped() striped} if the concurrency level is greater than one.
+     */
+    public URIPool(ReferenceQueue<Object> queue, int concurrencyLevel)
+    {
+      this(queue, concurrencyLevel, 0);
+    }
+
+    /**
+     * Creates an instance with the given {@link #options}, e.g., {@link #OPEN_ADDRESSING}.
+     */
+    public URIPool(ReferenceQueue<Object> queue, int concurrencyLevel, int options)
+    {
+      this(queue, 1031, concurrencyLevel, options, defaultLoadFactor(options));
+    }
+
+    /**
+     * Creates an instance with at least the given capacity, the given {@link #options}, and the given {@link #loadFactor load factor}.
+     */
+    public URIPool(ReferenceQueue<Object> queue, int minimumCapacity, int concurrencyLevel, int options, float loadFactor)
+    {
+      super(minimumCapacity, null, queue, concurrencyLevel, options, loadFactor);
 
       // The string cache will be managed by either an internal or external cache as appropriate.
       //
@@ -45,6 +71,49 @@ import java.lang.ref.WeakReference;
      */
     protected final Queue uriComponentsAccessUnits = new QueueComponent();
 
+    /**
+     * Access units for interning a batch of strings.
+     */
+    protected final Queue batchAccessUnits = new QueueBatch(this);
+
+    /**
+     * Access units for access via a range of a character array.
+     */
+    protected final Queue charactersAccessUnits = new QueueCharacters();
+
+    /**
+     * Access units for UTF-8 encoded byte access.
+     */
+    protected final Queue bytesAccessUnits = new QueueBytes();
+
+    @Override
+    protected void releaseLocalAccessUnits()
+    {
+      super.releaseLocalAccessUnits();
+      stringAccessUnits.releaseLocalAccessUnits();
+      platformAccessUnits.releaseLocalAccessUnits();
+      fileAccessUnits.releaseLocalAccessUnits();
+      uriComponentsAccessUnits.releaseLocalAccessUnits();
+      batchAccessUnits.releaseLocalAccessUnits();
+      charactersAccessUnits.releaseLocalAccessUnits();
+      bytesAccessUnits.releaseLocalAccessUnits();
+    }
+
+    /**
+     * The counters for {@link #intern(String)}, which finds most values without using an access unit.
+     */
+    protected final AccessCounters stringAccessCounters = getAccessCounters(StringAccessUnit.class);
+
+    /**
+     * The counters for {@link #intern(char[], int, int)} and {@link #intern(CharSequence, int, int)}.
+     */
+    protected final AccessCounters charactersAccessCounters = getAccessCounters(URICharactersAccessUnit.class);
+
+    /**
+     * The counters for {@link #intern(byte[], int, int)} and {@link #intern(ByteBuffer)}.
+     */
+    protected final AccessCounters bytesAccessCounters = getAccessCounters(BytesAccessUnit.class);
+
     /**
      * Intern a URI from its string representation, parsing if necessary.
      * The string must not contain the fragment separator.
@@ -69,28 +138,193 @@ import java.lang.ref.WeakReference;
           {
             // Return that already present value.
             //
+            stringAccessCounters.hits.increment();
+            accessed(entry);
             return uri;
           }
         }
+        stringAccessCounters.misses.increment();
+        return parse(string, hashCode);
+      }
+    }
 
-        writeLock.lock();
-        try
-        {
-          StringAccessUnit accessUnit = (StringAccessUnit) stringAccessUnits.pop(true);
-          accessUnit.setValue(string, hashCode);
+    /**
+     * Parses the string, which has the given hash code, into a URI that's added to the pool.
+     * The parse interns the components, and then the URI composed from them, as a side effect;
+     * the write lock, or for a striped pool the stripe lock, is held only while adding an entry, after double checking that no other thread already added it.
+     */
+    protected URI parse(String string, int hashCode)
+    {
+      StringAccessUnit accessUnit = (StringAccessUnit) stringAccessUnits.pop(false);
+      accessUnit.setValue(string, hashCode);
+      try
+      {
+        return accessUnit.getInternalizedValue();
+      }
+      finally
+      {
+        accessUnit.reset(false);
+      }
+    }
 
-          // The implementation returns an internalized value that's already pooled as a side effect.
-          //
-          URI result = accessUnit.getInternalizedValue();
+    /**
+     * Intern a URI from the characters in the given range of the array, parsing if necessary.
+     * The characters must not contain the fragment separator.
+     * A URI that's already pooled is found without creating any objects; a string is created only if the URI must be parsed.
+     */
+    protected URI intern(char[] characters, int offset, int count)
+    {
+      URICharactersAccessUnit accessUnit = (URICharactersAccessUnit) charactersAccessUnits.pop(false);
+      accessUnit.setValue(characters, offset, count);
+      try
+      {
+        return intern(accessUnit, charactersAccessCounters);
+      }
+      finally
+      {
+        accessUnit.reset(false);
+      }
+    }
+
+    /**
+     * Intern a URI from the characters in the given range of the sequence, parsing if necessary.
+     * The characters must not contain the fragment separator.
+     * A URI that's already pooled is found without creating any objects; a string is created only if the URI must be parsed.
+     */
+    protected URI intern(CharSequence characters, int start, int end)
+    {
+      if (characters instanceof String && start == 0 && end == characters.length())
+      {
+        return intern((String)characters);
+      }
+
+      // The sequence itself is matched against the URIs, so no access unit is needed.
+      //
+      int hashCode = 0;
+      for (int i = start; i < end; ++i)
+      {
+        hashCode = 31 * hashCode + characters.charAt(i);
+      }
+      for (Entry<URI> entry = getEntry(hashCode); entry != null; entry = entry.getNextEntry())
+      {
+        URI uri = entry.get();
+        if (uri != null && uri.matches(characters, start, end))
+        {
+          charactersAccessCounters.hits.increment();
+          accessed(entry);
+          return uri;
+        }
+      }
+      charactersAccessCounters.misses.increment();
+      return parse(characters.subSequence(start, end).toString(), hashCode);
+    }
 
-          accessUnit.reset(true);
-          return result;
+    /**
+     * Intern a URI from the UTF-8 encoded bytes in the given range of the array, parsing if necessary.
+     * The bytes must not contain the fragment separator.
+     * A URI that's already pooled is found without creating any objects; a string is created only if the URI must be parsed.
+     */
+    protected URI intern(byte[] bytes, int offset, int length)
+    {
+      // The bytes of most URIs are all ASCII, in which case the hash code can be computed directly from the bytes,
+      // and the bytes can be compared directly against the cached strings of the URIs with that hash code, without using an access unit.
+      //
+      int hashCode = 0;
+      int i = offset;
+      for (int end = offset + length; i < end; ++i)
+      {
+        int b = bytes[i];
+        if (b < 0)
+        {
+          break;
         }
-        finally
+        hashCode = 31 * hashCode + b;
+      }
+      if (i == offset + length)
+      {
+        for (Entry<URI> entry = getEntry(hashCode); entry != null; entry = entry.getNextEntry())
         {
-          writeLock.unlock();
+          URI uri = entry.get();
+          if (uri != null)
+          {
+            String cachedString = uri.getCachedString();
+            if (cachedString != null && BytesAccessUnit.matches(cachedString, bytes, offset, length))
+            {
+              bytesAccessCounters.hits.increment();
+              accessed(entry);
+              return uri;
+            }
+          }
+        }
+      }
+
+      // Otherwise decode the bytes, which handles non-ASCII characters and URIs whose string isn't cached.
+      //
+      BytesAccessUnit accessUnit = (BytesAccessUnit) bytesAccessUnits.pop(false);
+      try
+      {
+        return accessUnit.setValue(bytes, offset, length) ? intern(accessUnit, bytesAccessCounters) : intern(accessUnit.decode());
+      }
+      finally
+      {
+        accessUnit.reset(false);
+      }
+    }
+
+    /**
+     * Intern a URI from the remaining UTF-8 encoded bytes of the buffer, parsing if necessary, without changing the buffer's position.
+     * The bytes must not contain the fragment separator.
+     */
+    protected URI intern(ByteBuffer buffer)
+    {
+      BytesAccessUnit accessUnit = (BytesAccessUnit) bytesAccessUnits.pop(false);
+      try
+      {
+        return accessUnit.setValue(buffer) ? intern(accessUnit, bytesAccessCounters) : intern(accessUnit.decode());
+      }
+      finally
+      {
+        accessUnit.reset(false);
+      }
+    }
+
+    /**
+     * Intern a URI from the characters of the access unit, parsing a string of those characters only if necessary.
+     */
+    private URI intern(URICharactersAccessUnit accessUnit, AccessCounters accessCounters)
+    {
+      int hashCode = accessUnit.hashCode;
+      for (Entry<URI> entry = getEntry(hashCode); entry != null; entry = entry.getNextEntry())
+      {
+        URI uri = entry.get();
+        if (uri != null && accessUnit.matches(uri))
+        {
+          accessCounters.hits.increment();
+          accessed(entry);
+          return uri;
         }
       }
+      accessCounters.misses.increment();
+      return parse(accessUnit.toString(), hashCode);
+    }
+
+    /**
+     * Intern the URIs for the given strings, storing each in the corresponding position of the given array.
+     * The strings must not contain the fragment separator; a <code>null</code> string yields a <code>null</code> URI.
+     * The strings that aren't found are parsed without holding any lock, and the write lock is acquired just once to add all the parsed URIs.
+     */
+    protected void intern(String[] strings, URI[] uris)
+    {
+      BatchAccessUnit accessUnit = (BatchAccessUnit) batchAccessUnits.pop(false);
+      accessUnit.setValue(strings, uris);
+      try
+      {
+        accessUnit.internAll();
+      }
+      finally
+      {
+        accessUnit.reset(false);
+      }
     }
 
     /**
@@ -122,7 +356,7 @@ import java.lang.ref.WeakReference;
     {
       if (isExclusive)
       {
-        writeLock.lock();
+        lockWriteLock();
       }
       URI uri;
       try
@@ -149,7 +383,7 @@ import java.lang.ref.WeakReference;
     {
       if (isExclusive)
       {
-        writeLock.lock();
+        lockWriteLock();
       }
       URI uri;
       try
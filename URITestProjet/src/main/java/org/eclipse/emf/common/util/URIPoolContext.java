@@ -0,0 +1,283 @@
+package org.eclipse.emf.common.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A context with its own pools of {@link URI URIs}, isolated from the pools shared by default,
+ * e.g., for each tenant of a server, so that one tenant's URIs neither bloat nor stall the rehashing of another tenant's table.
+ * A context is {@link #setCurrent(URIPoolContext) selected} per thread:
+ * <pre>
+ *  URIPoolContext previousContext = URIPoolContext.setCurrent(tenantContext);
+ *  try
+ *  {
+ *    ...
+ *  }
+ *  finally
+ *  {
+ *    URIPoolContext.setCurrent(previousContext);
+ *  }</pre>
+ * <p>
+ * While a context is current, every URI that the thread creates, including those derived from other URIs, e.g., by {@link URI#resolve(URI) resolving},
+ * is interned in the context's pools, so it's the same instance as the equal URI created in the same context, but not as one created in another context.
+ * URIs from different contexts should therefore not be mixed.
+ * The components of the URIs, i.e., their strings and segment arrays, are still interned in the shared pools,
+ * so the components of URIs from different contexts remain comparable by identity.
+ * </p>
+ * <p>
+ * Each of a context's pools may have a {@link Pool#setMaximumSize(int) maximum size},
+ * beyond which the creation of a URI that isn't already in the pool is rejected with an {@link IllegalStateException},
+ * and is {@link PoolStatistics#getRejectionCount() counted} in the pool's {@link #getStatistics() statistics}.
+ * </p>
+ * <p>
+ * A context that's no longer needed should be {@link #dispose() disposed}, which drops its pools.
+ * </p>
+ */
+public final class URIPoolContext
+{
+  /**
+   * The current context of each thread.
+   */
+  private static final ThreadLocal<URIPoolContext> CURRENT_CONTEXT = new ThreadLocal<URIPoolContext>();
+
+  /**
+   * The number of threads that have a current context,
+   * so that the {@link #CURRENT_CONTEXT} need not be consulted while no thread has one.
+   */
+  private static final AtomicInteger CURRENT_CONTEXT_COUNT = new AtomicInteger();
+
+  /**
+   * Returns the pool of the calling thread's current context, or the shared pool if there isn't one.
+   */
+  static URIPool getPool()
+  {
+    if (CURRENT_CONTEXT_COUNT.get() != 0)
+    {
+      URIPoolContext context = CURRENT_CONTEXT.get();
+      if (context != null)
+      {
+        URIPool pool = context.pool;
+        if (pool == null)
+        {
+          throw context.disposedException();
+        }
+        return pool;
+      }
+    }
+    return URI.POOL;
+  }
+
+  /**
+   * Returns the fragment pool of the calling thread's current context, or the shared fragment pool if there isn't one.
+   */
+  static FragmentPool getFragmentPool()
+  {
+    if (CURRENT_CONTEXT_COUNT.get() != 0)
+    {
+      URIPoolContext context = CURRENT_CONTEXT.get();
+      if (context != null)
+      {
+        FragmentPool fragmentPool = context.fragmentPool;
+        if (fragmentPool == null)
+        {
+          throw context.disposedException();
+        }
+        return fragmentPool;
+      }
+    }
+    return URI.FRAGMENT_POOL;
+  }
+
+  /**
+   * Returns the resolve cache of the calling thread's current context, or the shared resolve cache if there isn't one.
+   */
+  static URIPairCache getResolveCache()
+  {
+    if (CURRENT_CONTEXT_COUNT.get() != 0)
+    {
+      URIPoolContext context = CURRENT_CONTEXT.get();
+      if (context != null)
+      {
+        return context.resolveCache;
+      }
+    }
+    return URI.RESOLVE_CACHE;
+  }
+
+  /**
+   * Returns the deresolve cache of the calling thread's current context, or the shared deresolve cache if there isn't one.
+   */
+  static URIPairCache getDeresolveCache()
+  {
+    if (CURRENT_CONTEXT_COUNT.get() != 0)
+    {
+      URIPoolContext context = CURRENT_CONTEXT.get();
+      if (context != null)
+      {
+        return context.deresolveCache;
+      }
+    }
+    return URI.DERESOLVE_CACHE;
+  }
+
+  /**
+   * Returns the calling thread's current context, or <code>null</code> if it uses the shared pools.
+   */
+  public static URIPoolContext getCurrent()
+  {
+    return CURRENT_CONTEXT_COUNT.get() == 0 ? null : CURRENT_CONTEXT.get();
+  }
+
+  /**
+   * Sets the calling thread's current context, or <code>null</code> for the shared pools, returning the previous one.
+   * @exception java.lang.IllegalStateException if the context is {@link #isDisposed() disposed}.
+   */
+  public static URIPoolContext setCurrent(URIPoolContext context)
+  {
+    if (context != null && context.pool == null)
+    {
+      throw context.disposedException();
+    }
+
+    URIPoolContext previousContext = CURRENT_CONTEXT.get();
+    if (context == null)
+    {
+      if (previousContext != null)
+      {
+        CURRENT_CONTEXT.remove();
+        CURRENT_CONTEXT_COUNT.decrementAndGet();
+      }
+    }
+    else
+    {
+      CURRENT_CONTEXT.set(context);
+      if (previousContext == null)
+      {
+        CURRENT_CONTEXT_COUNT.incrementAndGet();
+      }
+    }
+    return previousContext;
+  }
+
+  /**
+   * The name of this context.
+   */
+  private final String name;
+
+  /**
+   * The pool of the URIs without a fragment, or <code>null</code> once this context is disposed.
+   */
+  volatile URIPool pool;
+
+  /**
+   * The pool of the URIs with a fragment, or <code>null</code> once this context is disposed.
+   */
+  volatile FragmentPool fragmentPool;
+
+  /**
+   * The cache of the results of {@link URI#resolve(URI) resolving} in this context.
+   * The results are interned in this context's pools, so they must not be served from the shared cache, nor from that of another context.
+   */
+  final URIPairCache resolveCache = new URIPairCache("ResolveCache", 1024);
+
+  /**
+   * The cache of the results of {@link URI#deresolve(URI) deresolving} in this context.
+   */
+  final URIPairCache deresolveCache = new URIPairCache("DeresolveCache", 1024);
+
+  /**
+   * Creates an instance with the given name whose pools each have the given {@link Pool#setMaximumSize(int) maximum size}, or are unbounded if it's 0.
+   * The pools are configured by the same system properties as the shared pools.
+   */
+  public URIPoolContext(String name, int maximumSize)
+  {
+    this.name = name;
+    pool = new URIPool(CommonUtil.REFERENCE_CLEARING_QUEUE);
+    pool.setMaximumSize(maximumSize);
+    fragmentPool = new FragmentPool(CommonUtil.REFERENCE_CLEARING_QUEUE);
+    fragmentPool.setMaximumSize(maximumSize);
+  }
+
+  /**
+   * Returns the name of this context.
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns a live view of the statistics of this context's pool of URIs without a fragment.
+   * @exception java.lang.IllegalStateException if this context is {@link #isDisposed() disposed}.
+   */
+  public PoolStatistics getStatistics()
+  {
+    URIPool pool = this.pool;
+    if (pool == null)
+    {
+      throw disposedException();
+    }
+    return new PoolStatistics(name + ".URIPool", pool);
+  }
+
+  /**
+   * Returns a live view of the statistics of this context's pool of URIs with a fragment.
+   * @exception java.lang.IllegalStateException if this context is {@link #isDisposed() disposed}.
+   */
+  public PoolStatistics getFragmentStatistics()
+  {
+    FragmentPool fragmentPool = this.fragmentPool;
+    if (fragmentPool == null)
+    {
+      throw disposedException();
+    }
+    return new PoolStatistics(name + ".FragmentPool", fragmentPool);
+  }
+
+  /**
+   * Returns whether this context has been {@link #dispose() disposed}.
+   */
+  public boolean isDisposed()
+  {
+    return pool == null;
+  }
+
+  /**
+   * Disposes this context, dropping its pools, so that they can be garbage collected even while this context is still referenced.
+   * If this context is current in the calling thread, the calling thread reverts to the shared pools.
+   * The calling thread's caches of the pools' access units are discarded immediately;
+   * those of other threads are referenced only weakly by those threads, so they're garbage collected along with the pools.
+   * The context should no longer be current in any other thread;
+   * a thread that creates a URI while a disposed context is current fails with an {@link IllegalStateException}.
+   * Disposing a context that's already disposed has no effect.
+   */
+  public void dispose()
+  {
+    URIPool pool = this.pool;
+    FragmentPool fragmentPool = this.fragmentPool;
+    if (pool != null)
+    {
+      if (CURRENT_CONTEXT.get() == this)
+      {
+        setCurrent(null);
+      }
+      pool.releaseLocalAccessUnits();
+      fragmentPool.releaseLocalAccessUnits();
+      this.pool = null;
+      this.fragmentPool = null;
+    }
+  }
+
+  /**
+   * Returns the exception for an attempt to use this context after it has been {@link #dispose() disposed}.
+   */
+  private IllegalStateException disposedException()
+  {
+    return new IllegalStateException("The URI pool context " + name + " is disposed");
+  }
+
+  @Override
+  public String toString()
+  {
+    return "URIPoolContext [name=" + name + "]";
+  }
+}
@@ -0,0 +1,254 @@
+package org.eclipse.emf.common.util;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A map from {@link URI#isPrefix() prefix} URIs to their replacement prefix URIs,
+ * for remapping URIs by {@link #replacePrefix(URI) replacing} the longest registered prefix of each one, as {@link URI#replacePrefix(URI, URI)} does.
+ * <p>
+ * The registered prefixes are indexed by a trie keyed by the scheme, the authority, the device, and the path absoluteness of each prefix,
+ * followed by each of its segments, except for its trailing empty segment.
+ * The components and segments of URIs are interned, so they're compared by identity, just as {@link URI#replacePrefix(URI, URI)} compares them.
+ * So the longest registered prefix of a URI is found by visiting at most one node per segment, regardless of how many prefixes are registered,
+ * and without creating any objects.
+ * </p>
+ * <p>
+ * As with a {@link java.util.HashMap}, lookups may proceed concurrently, but modifications must be synchronized externally.
+ * </p>
+ */
+public final class URIPrefixMap
+{
+  /**
+   * A node of the trie.
+   */
+  private static final class Node
+  {
+    /**
+     * The parent node, or <code>null</code> for the root.
+     */
+    final Node parent;
+
+    /**
+     * The key of this node in its parent's {@link #children}.
+     */
+    final Object key;
+
+    /**
+     * The child nodes, or <code>null</code> if there aren't any.
+     */
+    Map<Object, Node> children;
+
+    /**
+     * The prefix registered at this node, or <code>null</code> if there isn't one.
+     */
+    URI oldPrefix;
+
+    /**
+     * The replacement of the {@link #oldPrefix}.
+     */
+    URI newPrefix;
+
+    Node(Node parent, Object key)
+    {
+      this.parent = parent;
+      this.key = key;
+    }
+
+    /**
+     * Returns the child with the given key, creating it if requested, or <code>null</code> if there isn't one.
+     */
+    Node getChild(Object key, boolean create)
+    {
+      Map<Object, Node> children = this.children;
+      Node child = children == null ? null : children.get(key);
+      if (child == null && create)
+      {
+        if (children == null)
+        {
+          this.children = children = new IdentityHashMap<Object, Node>(4);
+        }
+        child = new Node(this, key);
+        children.put(key, child);
+      }
+      return child;
+    }
+  }
+
+  /**
+   * The root of the trie.
+   */
+  private final Node root = new Node(null, null);
+
+  /**
+   * The number of registered prefixes.
+   */
+  private int size;
+
+  /**
+   * Creates an empty map.
+   */
+  public URIPrefixMap()
+  {
+    super();
+  }
+
+  /**
+   * Returns the number of registered prefixes.
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Registers the replacement of the old prefix by the new prefix,
+   * returning the new prefix previously registered for the old prefix, or <code>null</code> if there wasn't one.
+   *
+   * @exception java.lang.IllegalArgumentException if either
+   * <code>oldPrefix</code> or <code>newPrefix</code> is not a prefix URI
+   * according to {@link URI#isPrefix}.
+   */
+  public URI put(URI oldPrefix, URI newPrefix)
+  {
+    if (!oldPrefix.isPrefix() || !newPrefix.isPrefix())
+    {
+      String which = oldPrefix.isPrefix() ? "new" : "old";
+      throw new IllegalArgumentException("non-prefix " + which + " value");
+    }
+
+    Node node = getNode(oldPrefix, true);
+    URI result = node.oldPrefix == oldPrefix ? node.newPrefix : null;
+    if (node.oldPrefix == null)
+    {
+      ++size;
+    }
+    node.oldPrefix = oldPrefix;
+    node.newPrefix = newPrefix;
+    return result;
+  }
+
+  /**
+   * Returns the new prefix registered for the old prefix, or <code>null</code> if there isn't one.
+   */
+  public URI get(URI oldPrefix)
+  {
+    Node node = getNode(oldPrefix, false);
+    return node != null && node.oldPrefix == oldPrefix ? node.newPrefix : null;
+  }
+
+  /**
+   * Removes the registration of the old prefix,
+   * returning the new prefix that was registered for it, or <code>null</code> if there wasn't one.
+   */
+  public URI remove(URI oldPrefix)
+  {
+    Node node = getNode(oldPrefix, false);
+    if (node == null || node.oldPrefix != oldPrefix)
+    {
+      return null;
+    }
+
+    URI result = node.newPrefix;
+    node.oldPrefix = null;
+    node.newPrefix = null;
+    --size;
+
+    // Prune the nodes that no longer lead to a registered prefix.
+    //
+    while (node.parent != null && node.oldPrefix == null && (node.children == null || node.children.isEmpty()))
+    {
+      node.parent.children.remove(node.key);
+      node = node.parent;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the URI formed by {@link URI#replacePrefix(URI, URI) replacing} the longest registered prefix of the given URI by its new prefix,
+   * or <code>null</code> if no registered prefix is a prefix of the URI.
+   */
+  public URI replacePrefix(URI uri)
+  {
+    Node node = getPathNode(uri, false);
+    if (node == null)
+    {
+      return null;
+    }
+
+    // Descend through the segments for as long as there are nodes, remembering the deepest node with a registered prefix.
+    // A prefix with segments can only be a prefix of a URI with more segments than it has non-empty segments.
+    //
+    String[] segments = uri.rawSegments();
+    int segmentCount = segments.length;
+    Node candidate = node.oldPrefix == null ? null : node;
+    for (int i = 0; i < segmentCount; ++i)
+    {
+      node = node.getChild(segments[i], false);
+      if (node == null)
+      {
+        break;
+      }
+      if (node.oldPrefix != null && i + 1 < segmentCount)
+      {
+        candidate = node;
+      }
+    }
+
+    // The replacement applies the exact semantics of URI.replacePrefix;
+    // in the unusual case that it rejects the candidate, a shorter prefix may still apply.
+    //
+    for (; candidate != null; candidate = candidate.parent)
+    {
+      if (candidate.oldPrefix != null)
+      {
+        URI result = uri.replacePrefix(candidate.oldPrefix, candidate.newPrefix);
+        if (result != null)
+        {
+          return result;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the node for the prefix, creating it if requested, or <code>null</code> if there isn't one.
+   */
+  private Node getNode(URI prefix, boolean create)
+  {
+    Node node = getPathNode(prefix, create);
+    if (node != null)
+    {
+      // A prefix's last segment is empty, unless it's the root absolute path, which has no segments.
+      //
+      String[] segments = prefix.rawSegments();
+      for (int i = 0, count = segments.length - 1; i < count && node != null; ++i)
+      {
+        node = node.getChild(segments[i], create);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Returns the node for the scheme, authority, device, and path absoluteness of the URI, creating it if requested, or <code>null</code> if there isn't one.
+   */
+  private Node getPathNode(URI uri, boolean create)
+  {
+    Node node = root.getChild(uri.scheme(), create);
+    if (node != null)
+    {
+      node = node.getChild(uri.authority(), create);
+      if (node != null)
+      {
+        node = node.getChild(uri.device(), create);
+        if (node != null)
+        {
+          node = node.getChild(uri.hasAbsolutePath() ? Boolean.TRUE : Boolean.FALSE, create);
+        }
+      }
+    }
+    return node;
+  }
+}
@@ -0,0 +1,252 @@
+package org.eclipse.emf.common.util;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scope, {@link URI#openScope() opened} by a thread, within which the URIs that the thread {@link URI#createURI(String) creates} from strings,
+ * individually or as a {@link URI#createURIs(String[]) batch}, are held strongly in a compact table, until the scope is {@link #close() closed}.
+ * It's intended for a batch job that creates a great many URIs that all become garbage together at the end of the job:
+ * <pre>
+ *  URIScope scope = URI.openScope();
+ *  try
+ *  {
+ *    ...
+ *  }
+ *  finally
+ *  {
+ *    scope.close();
+ *  }</pre>
+ * <p>
+ * Within the scope, a URI that's created again is found in the scope's table, an open addressing array of URIs,
+ * without dereferencing the weak references of the pools or counting the access.
+ * The URIs in the table can't be garbage collected, so the pools' entries for them aren't cleared and enqueued while the job runs.
+ * Closing the scope drops the whole table at once, after which the URIs are referenced only weakly by the pools, as usual.
+ * </p>
+ * <p>
+ * A URI that's created in a scope is still {@link Pool pooled}, so it's the same instance as the equal URI created outside of the scope,
+ * and may safely outlive the scope.
+ * A scope is confined to the thread that opened it, and applies only while the {@link URIPoolContext context} in which it was opened is current.
+ * It doesn't apply to the URIs created from a range of a {@link URI#createURI(CharSequence, int, int) character sequence},
+ * a {@link URI#createURI(char[], int, int) character array}, or {@link URI#createURI(byte[], int, int) bytes}:
+ * the table matches strings, and those methods exist to find a pooled URI without creating one.
+ * Scopes may be nested; closing a scope restores the innermost enclosing scope that's still open.
+ * </p>
+ */
+public final class URIScope implements Closeable
+{
+  /**
+   * The innermost open scope of each thread.
+   */
+  private static final ThreadLocal<URIScope> CURRENT_SCOPE = new ThreadLocal<URIScope>();
+
+  /**
+   * The number of open scopes of all threads,
+   * so that the {@link #CURRENT_SCOPE} need not be consulted while no thread has a scope open.
+   */
+  private static final AtomicInteger OPEN_SCOPE_COUNT = new AtomicInteger();
+
+  /**
+   * The initial length of the {@link #uris}.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * Returns the calling thread's innermost open scope, or <code>null</code> if there isn't one,
+   * or if it was opened in a different {@link URIPoolContext context} than the current one.
+   */
+  static URIScope getCurrentScope()
+  {
+    if (OPEN_SCOPE_COUNT.get() != 0)
+    {
+      URIScope scope = CURRENT_SCOPE.get();
+      if (scope != null && scope.context == URIPoolContext.getCurrent())
+      {
+        return scope;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * The thread that opened this scope.
+   */
+  private final Thread thread;
+
+  /**
+   * The scope that enclosed this one when it was opened, or <code>null</code> if there wasn't one.
+   */
+  private final URIScope outerScope;
+
+  /**
+   * The context that was current when this scope was opened, or <code>null</code> if there wasn't one.
+   */
+  private final URIPoolContext context;
+
+  /**
+   * The URIs of this scope, or <code>null</code> once it's closed.
+   */
+  private URI[] uris;
+
+  /**
+   * The hash code of the URI at each index of the {@link #uris}.
+   */
+  private int[] hashCodes;
+
+  /**
+   * The number of URIs in this scope.
+   */
+  private int size;
+
+  /**
+   * The size beyond which the {@link #uris} grow.
+   */
+  private int threshold;
+
+  /**
+   * Creates an instance and makes it the calling thread's current scope.
+   */
+  URIScope()
+  {
+    thread = Thread.currentThread();
+    outerScope = CURRENT_SCOPE.get();
+    context = URIPoolContext.getCurrent();
+    uris = new URI[INITIAL_CAPACITY];
+    hashCodes = new int[INITIAL_CAPACITY];
+    threshold = INITIAL_CAPACITY / 2;
+    CURRENT_SCOPE.set(this);
+    OPEN_SCOPE_COUNT.incrementAndGet();
+  }
+
+  /**
+   * Returns whether this scope is still open.
+   */
+  public boolean isOpen()
+  {
+    return uris != null;
+  }
+
+  /**
+   * Returns the number of URIs held by this scope.
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Closes this scope, releasing all its URIs at once.
+   * Closing a scope that's already closed has no effect.
+   * @exception java.lang.IllegalStateException if the calling thread isn't the one that opened the scope.
+   */
+  public void close()
+  {
+    if (thread != Thread.currentThread())
+    {
+      throw new IllegalStateException("A scope must be closed by the thread that opened it");
+    }
+
+    if (uris != null)
+    {
+      uris = null;
+      hashCodes = null;
+      size = 0;
+      OPEN_SCOPE_COUNT.decrementAndGet();
+
+      // If this is the current scope, the innermost enclosing scope that's still open becomes the current one.
+      //
+      if (CURRENT_SCOPE.get() == this)
+      {
+        URIScope scope = outerScope;
+        while (scope != null && scope.uris == null)
+        {
+          scope = scope.outerScope;
+        }
+        if (scope == null)
+        {
+          CURRENT_SCOPE.remove();
+        }
+        else
+        {
+          CURRENT_SCOPE.set(scope);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the URI for the string, which has its fragment separator, if any, at the given index,
+   * finding it in this scope, or creating it and adding it to this scope.
+   */
+  URI intern(String string, int index)
+  {
+    URI[] uris = this.uris;
+    int[] hashCodes = this.hashCodes;
+    int hashCode = string.hashCode();
+    int mask = uris.length - 1;
+    int i = (hashCode ^ hashCode >>> 16) & mask;
+    for (URI uri; (uri = uris[i]) != null; i = (i + 1) & mask)
+    {
+      if (hashCodes[i] == hashCode && matches(uri, string, index))
+      {
+        return uri;
+      }
+    }
+
+    URI uri = URI.createPooledURI(string, index);
+    uris[i] = uri;
+    hashCodes[i] = hashCode;
+    if (++size > threshold)
+    {
+      grow();
+    }
+    return uri;
+  }
+
+  /**
+   * Returns whether the URI is the one for the string, which has its fragment separator, if any, at the given index.
+   */
+  private static boolean matches(URI uri, String string, int index)
+  {
+    if (uri instanceof Fragment)
+    {
+      Fragment fragment = (Fragment)uri;
+      return index != -1 && FragmentPool.matches(fragment.fragment, string, index + 1, string.length()) && fragment.uri.matches(string, 0, index);
+    }
+    else
+    {
+      return index == -1 && uri.matches(string);
+    }
+  }
+
+  /**
+   * Doubles the length of the {@link #uris}.
+   */
+  private void grow()
+  {
+    URI[] oldURIs = uris;
+    int[] oldHashCodes = hashCodes;
+    int length = oldURIs.length << 1;
+    int mask = length - 1;
+    URI[] uris = new URI[length];
+    int[] hashCodes = new int[length];
+    for (int i = 0; i < oldURIs.length; ++i)
+    {
+      URI uri = oldURIs[i];
+      if (uri != null)
+      {
+        int hashCode = oldHashCodes[i];
+        int j = (hashCode ^ hashCode >>> 16) & mask;
+        while (uris[j] != null)
+        {
+          j = (j + 1) & mask;
+        }
+        uris[j] = uri;
+        hashCodes[j] = hashCode;
+      }
+    }
+    this.uris = uris;
+    this.hashCodes = hashCodes;
+    threshold = length / 2;
+  }
+}
@@ -17,6 +17,7 @@ import java.lang.ref.WeakReference;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -40,7 +41,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
   protected static final Entry<Object> NULL_ENTRY = new Entry<Object>();
 
   /**
-   * The capacity used for the {@link #entries} of the set will always be a prime number to help ensure uniform distribution of the hash codes.
+   * The capacity used for the {@link #entries} of the set will always be a prime number to help ensure uniform distribution of the hash codes,
+   * unless the set is created with the {@link #POWER_OF_TWO} option.
    * Each of these prime numbers is the smallest prime larger than 2^n, except for the last, which is the largest prime < {@link Integer#MAX_VALUE}.
    */
   protected static final int[] PRIME_CAPACITIES =
@@ -80,13 +82,54 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       2147483629
     };
 
+  /**
+   * The {@link #options option} for a set whose {@link #entries} form an open addressing table with a parallel table of {@link #hashCodes hash codes}.
+   */
+  protected static final int OPEN_ADDRESSING = 0x1;
+
+  /**
+   * The {@link #options option} for a set whose {@link #capacity(int) capacity} is always a power of two rather than one of the {@link #PRIME_CAPACITIES},
+   * so that the {@link #index(int, int) index} of a hash code is computed with a multiplication, a shift, and a mask rather than with an integer division.
+   */
+  protected static final int POWER_OF_TWO = 0x2;
+
+  /**
+   * The {@link #options option} for a set that, when it grows, doesn't rehash all its entries at once,
+   * but rather keeps the old table as the {@link #migratingEntries migrating entries} and {@link #migrate(int) migrates} them a few indices at a time,
+   * as entries are subsequently added and removed.
+   * It applies only to a set that isn't {@link #OPEN_ADDRESSING open addressing}.
+   */
+  protected static final int INCREMENTAL_REHASH = 0x4;
+
+  /**
+   * The number of indices of the {@link #migratingEntries} that are {@link #migrate(int) migrated} by each addition or removal.
+   * Migrating more than two indices per addition ensures that a migration always completes before the new table is itself full.
+   */
+  protected static final int MIGRATION_STRIDE = 16;
+
+  /**
+   * The largest exponent of a {@link #POWER_OF_TWO power of two} capacity.
+   */
+  private static final int MAXIMUM_POWER_OF_TWO = 30;
+
+  /**
+   * The options, e.g., {@link #OPEN_ADDRESSING}, with which the set was created.
+   */
+  protected final int options;
+
+  /**
+   * The ratio of the {@link #size} to the capacity beyond which the set {@link #ensureCapacity() grows}.
+   */
+  protected final float loadFactor;
+
   /**
    * The current size of the set.
    */
   protected int size;
 
   /**
-   * The current index within {@link #PRIME_CAPACITIES} for the length of the {@link #entries}.
+   * The current index within {@link #PRIME_CAPACITIES} for the length of the {@link #entries};
+   * for a {@link #POWER_OF_TWO} set, the index of the corresponding {@link #capacity(int) power of two}.
    */
   transient protected int capacityIndex;
 
@@ -110,6 +153,47 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
    */
   transient protected Entry<E>[] entries;
 
+  /**
+   * For an {@link #OPEN_ADDRESSING open addressing} set, the {@link #key(int) key} of the hash codes of the entries at each index of the {@link #entries}, or 0 for an index that's not in use;
+   * otherwise <code>null</code>.
+   * Each index in use is reserved for one key and the entries at that index are {@link Entry#next chained} only with entries that have that same key,
+   * so a lookup probes this primitive array and touches an entry only once it has found the key.
+   * An index whose entries have all been removed stays reserved, so that the probe sequences of other keys remain intact, until the next {@link #rehash(Entry[]) rehash}.
+   */
+  transient protected int[] hashCodes;
+
+  /**
+   * The number of indices in the {@link #hashCodes} of an {@link #OPEN_ADDRESSING open addressing} set that are in use, including those whose entries have all been removed.
+   */
+  transient protected int usedIndexCount;
+
+  /**
+   * For an {@link #INCREMENTAL_REHASH incrementally rehashed} set, the previous table of entries while its entries are still being {@link #migrate(int) migrated} to the {@link #entries};
+   * otherwise <code>null</code>.
+   * All the entries with any given hash code are in one table or the other, as determined by {@link #entriesFor(int)}.
+   */
+  transient protected Entry<E>[] migratingEntries;
+
+  /**
+   * The next index of the {@link #migratingEntries} to be {@link #migrate(int) migrated}, in order.
+   */
+  transient protected int migrationIndex;
+
+  /**
+   * The number of times the {@link #entries} have been {@link #rehash(Entry[]) rehashed}.
+   */
+  transient protected int rehashCount;
+
+  /**
+   * The total time, in nanoseconds, spent {@link #rehash(Entry[]) rehashing} the {@link #entries}.
+   */
+  transient protected long rehashTime;
+
+  /**
+   * The number of entries {@link #removeClearedEntry(Entry) removed} because their referent was garbage collected.
+   */
+  transient protected long clearedEntryCount;
+
   /**
    * A queue used when {@link #newInternalEntry(Object, int) creating} internal entries and {@link #cleanup() cleaning} garbage collected references.
    * The set must have must have either an internal queue or an {@link #externalQueue external} queue.
@@ -139,6 +223,11 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
      */
     public Entry<E> next;
 
+    /**
+     * An object by which a {@link RetentionPolicy retention policy} keeps the referent more than weakly reachable, or <code>null</code>.
+     */
+    protected Object retained;
+
     /**
      * Used only to create the {@link WeakInterningHashSet#NULL_ENTRY}.
      */
@@ -189,12 +278,20 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       super.clear();
     }
 
+    /**
+     * Returns the set from which this entry removes itself when {@link #clear() cleared}, or <code>null</code> if it doesn't.
+     */
+    protected WeakInterningHashSet<E> getSet()
+    {
+      return null;
+    }
+
     /**
      * {@link WeakInterningHashSet#removeEntry(Entry) removes} this entry from the set and then calls {@link #doClear()}.
      */
     public final void clear(WeakInterningHashSet<E> set)
     {
-      set.removeEntry(this);
+      set.removeClearedEntry(this);
       doClear();
     }
 
@@ -230,6 +327,29 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
    */
   WeakInterningHashSet(int minimumCapacity, ReferenceQueue<Object> queue)
   {
+    this(minimumCapacity, queue, 0);
+  }
+
+  /**
+   * Creates an instance with the given capacity, {@link #externalQueue external queue}, and {@link #options}.
+   */
+  WeakInterningHashSet(int minimumCapacity, ReferenceQueue<Object> queue, int options)
+  {
+    this(minimumCapacity, queue, options, defaultLoadFactor(options));
+  }
+
+  /**
+   * Creates an instance with the given capacity, {@link #externalQueue external queue}, {@link #options}, and {@link #loadFactor load factor}.
+   * The load factor of an {@link #OPEN_ADDRESSING open addressing} set must be less than one, because each entry needs an index of its own.
+   */
+  WeakInterningHashSet(int minimumCapacity, ReferenceQueue<Object> queue, int options, float loadFactor)
+  {
+    if (!isValidLoadFactor(loadFactor, options))
+    {
+      throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+    }
+    this.options = options;
+    this.loadFactor = loadFactor;
     doGrow(minimumCapacity);
     externalQueue = queue;
     if (queue == null)
@@ -256,7 +376,7 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
    */
   public void grow(int minimumCapacity)
   {
-    int currentCapacity = PRIME_CAPACITIES[capacityIndex];
+    int currentCapacity = capacity(capacityIndex);
     if (currentCapacity < minimumCapacity)
     {
       doGrow(minimumCapacity);
@@ -270,8 +390,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
   {
     for (int i = 0, length = PRIME_CAPACITIES.length; i < length; ++i)
     {
-      int capacity = PRIME_CAPACITIES[i];
-      if (capacity >= minimumCapacity)
+      int capacity = capacity(i);
+      if (capacity >= minimumCapacity || i == length - 1)
       {
         capacityIndex = i;
         ++modCount;
@@ -281,6 +401,23 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
     }
   }
 
+  /**
+   * Returns the capacity for the given index into the {@link #PRIME_CAPACITIES};
+   * for a {@link #POWER_OF_TWO} set, that's the power of two just below the prime, up to 2^30.
+   */
+  protected final int capacity(int capacityIndex)
+  {
+    if ((options & POWER_OF_TWO) != 0)
+    {
+      int exponent = capacityIndex + 4;
+      return 1 << (exponent < MAXIMUM_POWER_OF_TWO ? exponent : MAXIMUM_POWER_OF_TWO);
+    }
+    else
+    {
+      return PRIME_CAPACITIES[capacityIndex];
+    }
+  }
+
   /**
    * Returns the {@link Object#hashCode() hash code} of the object.
    * This will never be called with <code>null</code>.
@@ -329,18 +466,57 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
 
   /**
    * Ensures that 3/4 of current capacity is larger than the current size, i.e., that the {@link #size} <= {@link #threshold}.
-   * If not, it {@link #newEntries(int) reallocates} the entries to the next {@link #PRIME_CAPACITIES prime capacity},
+   * If not, it {@link #newEntries(int) reallocates} the entries to the next {@link #capacity(int) capacity},
    * i.e., it approximate doubles the capacity,
    * and then {@link #rehash(Entry[]) rehashes} the set.
    * The return value indicates whether or note the entries where rehashed.
    */
   protected boolean ensureCapacity()
   {
+    if (hashCodes != null)
+    {
+      // For an open addressing set, the indices still reserved for the keys of removed entries count too.
+      // If the size alone doesn't justify growing, rehash at the same capacity to reclaim those indices.
+      //
+      if (usedIndexCount > threshold)
+      {
+        if (size > threshold / 2)
+        {
+          ++capacityIndex;
+        }
+        rehash(newEntries(capacity(capacityIndex)));
+        return true;
+      }
+      else
+      {
+        return false;
+      }
+    }
+
     // If the current size is more the threshold..
     //
     if (size > threshold)
     {
-      rehash(newEntries(PRIME_CAPACITIES[++capacityIndex]));
+      if ((options & INCREMENTAL_REHASH) != 0)
+      {
+        // Complete any migration that's still in progress, though each addition migrates enough indices that it generally will have completed,
+        // and start migrating the current entries to the new larger table.
+        //
+        if (migratingEntries != null)
+        {
+          migrateIndices(Integer.MAX_VALUE);
+        }
+        Entry<E>[] newEntries = newEntries(capacity(++capacityIndex));
+        migrationIndex = 0;
+        migratingEntries = entries;
+        entries = newEntries;
+        threshold = threshold(newEntries.length);
+        ++rehashCount;
+      }
+      else
+      {
+        rehash(newEntries(capacity(++capacityIndex)));
+      }
       return true;
     }
     else
@@ -349,14 +525,86 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
     }
   }
 
+  /**
+   * Returns the threshold for the given capacity, i.e., the size beyond which the set is {@link #ensureCapacity() rehashed}, as determined by the {@link #loadFactor load factor}.
+   */
+  protected int threshold(int capacity)
+  {
+    return (int)Math.min(capacity * (double)loadFactor, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns the default {@link #loadFactor load factor} for a set with the given {@link #options}:
+   * 3/4, or, for an {@link #OPEN_ADDRESSING open addressing} set whose probe sequences lengthen quickly as the table fills, 1/2.
+   */
+  protected static float defaultLoadFactor(int options)
+  {
+    return (options & OPEN_ADDRESSING) == 0 ? 0.75f : 0.5f;
+  }
+
+  /**
+   * Returns whether the {@link #loadFactor load factor} is valid for a set with the given {@link #options}.
+   */
+  protected static boolean isValidLoadFactor(float loadFactor, int options)
+  {
+    return loadFactor > 0 && ((options & OPEN_ADDRESSING) == 0 ? !Float.isInfinite(loadFactor) : loadFactor < 1);
+  }
+
   /**
    * Rehashes the existing {@#entries} into the new entries.
    */
   final void rehash(Entry<E> [] newEntries)
   {
+    // All the entries need to be in the current table.
+    //
+    if (migratingEntries != null)
+    {
+      migrateIndices(Integer.MAX_VALUE);
+    }
+
+    long start = System.nanoTime();
     Entry<E> [] oldEntries = entries;
-    entries = newEntries;
     int newCapacity = newEntries.length;
+    if ((options & OPEN_ADDRESSING) != 0)
+    {
+      // Move each chain, whose entries all have the same key, to an unused index of the new table, dropping the indices whose entries have all been removed.
+      // The new tables are populated before they're published, so a lookup without a lock finds either the old tables or the new ones.
+      //
+      int[] oldHashCodes = hashCodes;
+      int[] newHashCodes = new int[newCapacity];
+      int usedIndexCount = 0;
+      if (oldEntries != null)
+      {
+        for (int i = 0, length = oldEntries.length; i < length; ++i)
+        {
+          Entry<E> entry = oldEntries[i];
+          if (entry != null)
+          {
+            int key = oldHashCodes[i];
+            int index = index(key, newCapacity);
+            while (newHashCodes[index] != 0)
+            {
+              if (++index == newCapacity)
+              {
+                index = 0;
+              }
+            }
+            newEntries[index] = entry;
+            newHashCodes[index] = key;
+            ++usedIndexCount;
+          }
+        }
+        ++rehashCount;
+        rehashTime += System.nanoTime() - start;
+      }
+      hashCodes = newHashCodes;
+      entries = newEntries;
+      this.usedIndexCount = usedIndexCount;
+      threshold = threshold(newCapacity);
+      return;
+    }
+
+    entries = newEntries;
     if (oldEntries != null)
     {
       for (int i = 0, length = oldEntries.length; i < length; ++i)
@@ -369,8 +617,10 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
           entry = nextEntry;
         }
       }
+      ++rehashCount;
+      rehashTime += System.nanoTime() - start;
     }
-    threshold = newCapacity * 3 / 4;
+    threshold = threshold(newCapacity);
   }
 
   /**
@@ -389,7 +639,7 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       {
         @SuppressWarnings("unchecked")
         Entry<E> entry = (Entry<E>)reference;
-        removeEntry(entry);
+        removeClearedEntry(entry);
         entry.clear();
       }
     }
@@ -436,7 +686,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
         // Iterate over the entries for the instance's hash code.
         //
         int hashCode = hashCode(instance);
-        int index = index(hashCode, entries.length);
+        Entry<E>[] entries = entriesFor(hashCode);
+        int index = indexOf(entries, hashCode);
         for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
         {
           if (hashCode == entry.hashCode)
@@ -477,10 +728,16 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
   {
     containsNull = false;
     size = 0;
+    migratingEntries = null;
     for (int i = 0; i < entries.length; ++i)
     {
       entries[i] = null;
     }
+    if (hashCodes != null)
+    {
+      Arrays.fill(hashCodes, 0);
+      usedIndexCount = 0;
+    }
   }
 
   /**
@@ -515,7 +772,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       // Iterate over the entries with the matching hash code.
       //
       int hashCode = hashCode(object);
-      int index = index(hashCode, entries.length);
+      Entry<E>[] entries = entriesFor(hashCode);
+      int index = indexOf(entries, hashCode);
       for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
       {
         if (hashCode == entry.hashCode)
@@ -566,7 +824,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       // Iterate over the entries with the matching hash code.
       //
       int hashCode = hashCode(object);
-      int index = index(hashCode, entries.length);
+      Entry<E>[] entries = entriesFor(hashCode);
+      int index = indexOf(entries, hashCode);
       for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
       {
         if (hashCode == entry.hashCode)
@@ -611,7 +870,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       // Iterate over the entries with the matching hash code.
       //
       int hashCode = hashCode(object);
-      int index = index(hashCode, entries.length);
+      Entry<E>[] entries = entriesFor(hashCode);
+      int index = indexOf(entries, hashCode);
       for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
       {
         if (hashCode == entry.hashCode)
@@ -665,7 +925,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
         // Iterate over the entries with the matching hash code.
         //
         int hashCode = hashCode(instance);
-        int index = index(hashCode, entries.length);
+        Entry<E>[] entries = entriesFor(hashCode);
+        int index = indexOf(entries, hashCode);
         for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
         {
           if (hashCode == entry.hashCode)
@@ -711,10 +972,15 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
         int expectedModCount = modCount;
 
         /**
-         * The current index in the {@link WeakInterningHashSet#entries}.
+         * The current index in the {@link #table}.
          */
         int index;
 
+        /**
+         * The table being walked: the {@link WeakInterningHashSet#migratingEntries migrating entries}, if any, followed by the {@link WeakInterningHashSet#entries}.
+         */
+        Entry<E>[] table = migratingEntries == null ? entries : migratingEntries;
+
         /**
          * Keep a hard reference to the object in the {@link #nextEntry} to ensure it's not garbage collected.
          */
@@ -754,7 +1020,7 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
               //
               for (;;)
               {
-                Entry<E> entry = entries[index];
+                Entry<E> entry = table[index];
                 if (entry != null)
                 {
                   // If the referent isn't null, prepare to yield its value.
@@ -769,9 +1035,14 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
                 }
                 // If we get to the end of the entries, terminate the loop; the set is empty.
                 //
-                if (++index == entries.length)
+                if (++index == table.length)
                 {
-                  break;
+                  if (table == entries)
+                  {
+                    break;
+                  }
+                  table = entries;
+                  index = 0;
                 }
               }
             }
@@ -833,18 +1104,24 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
               }
             }
 
-            // If we proceed beyond the end of the entries, prepare to yield nothing.
+            // If we proceed beyond the end of the entries, prepare to yield nothing,
+            // unless it's the end of the migrating entries, in which case continue with the current entries.
             //
-            if (++index == entries.length)
+            if (++index == table.length)
             {
-              nextEntry = null;
-              nextObject = null;
-              break;
+              if (table == entries)
+              {
+                nextEntry = null;
+                nextObject = null;
+                break;
+              }
+              table = entries;
+              index = 0;
             }
 
             // Consider the next entry in the table.
             //
-            entry = entries[index];
+            entry = table[index];
           }
 
           // Yield the cached result.
@@ -893,10 +1170,66 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
 
   /**
    * Returns the index in the {@link #entries} for the given hash code and capacity.
+   * A prime capacity uses the remainder of the hash code.
+   * A {@link #POWER_OF_TWO power of two} capacity, which a prime capacity never is, uses the high bits of the product of the golden ratio and the hash code,
+   * with its high half folded into its low half first, so that all the bits of the hash code contribute to the index;
+   * the {@link String#hashCode() hash codes} of strings that differ only in their last few characters differ only in their low bits,
+   * and without that folding, such nearly consecutive hash codes are spread in a regular pattern that leaves too many indices unused.
    */
   protected static int index(int hashCode, int capacity)
   {
-    return (hashCode & 0x7FFFFFFF) % capacity;
+    if ((capacity & (capacity - 1)) == 0)
+    {
+      return ((hashCode ^ hashCode >>> 16) * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(capacity) + 1);
+    }
+    else
+    {
+      return (hashCode & 0x7FFFFFFF) % capacity;
+    }
+  }
+
+  /**
+   * Returns the key stored in the {@link #hashCodes} for the given hash code;
+   * because 0 marks an unused index, the hash code 0 shares the key 1.
+   */
+  protected static int key(int hashCode)
+  {
+    return hashCode == 0 ? 1 : hashCode;
+  }
+
+  /**
+   * Returns the index in the given table, which is the current {@link #entries} or was so very recently, at which the entries with the given hash code are found or would be added.
+   * For a set that's not {@link #OPEN_ADDRESSING open addressing}, that's simply the {@link #index(int, int) index} of the hash code.
+   * Otherwise, the {@link #hashCodes} are probed linearly, starting at the index of the hash code's {@link #key(int) key}, for that key or for an unused index.
+   * Because this may be called without holding any lock, if the hash codes are not those of the given table, the starting index is returned, where a lookup will simply fail to find a match.
+   */
+  protected final int indexOf(Entry<E>[] entries, int hashCode)
+  {
+    int capacity = entries.length;
+    int[] hashCodes = this.hashCodes;
+    if (hashCodes == null)
+    {
+      return index(hashCode, capacity);
+    }
+
+    int key = key(hashCode);
+    int index = index(key, capacity);
+    if (hashCodes.length == capacity)
+    {
+      for (int i = 0; i < capacity; ++i)
+      {
+        int otherKey = hashCodes[index];
+        if (otherKey == key || otherKey == 0)
+        {
+          break;
+        }
+        if (++index == capacity)
+        {
+          index = 0;
+        }
+      }
+    }
+    return index;
   }
 
   /**
@@ -910,7 +1243,8 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       cleanup();
     }
 
-    int index = index(hashCode, entries.length);
+    Entry<E>[] entries = entriesFor(hashCode);
+    int index = indexOf(entries, hashCode);
     for (Entry<E> entry = entries[index]; entry != null; entry = entry.next)
     {
       if (hashCode == entry.hashCode)
@@ -965,6 +1299,12 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
       this.set = set;
     }
 
+    @Override
+    protected WeakInterningHashSet<E> getSet()
+    {
+      return set;
+    }
+
     @Override
     public void clear()
     {
@@ -980,16 +1320,97 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
     return new SelfCleaningEntry<E>(this, object, hashCode, externalQueue);
   }
 
+  /**
+   * Returns the table that holds the entries with the given hash code.
+   * While the set is {@link #migratingEntries migrating}, all the entries at an index of the old table are migrated together,
+   * and an entry is added to the new table only after the index of its hash code in the old table has been migrated,
+   * so if there are entries at that index of the old table, they include all the entries with the hash code; otherwise those are in the {@link #entries}.
+   */
+  protected final Entry<E>[] entriesFor(int hashCode)
+  {
+    Entry<E>[] migratingEntries = this.migratingEntries;
+    if (migratingEntries != null && migratingEntries[index(hashCode, migratingEntries.length)] != null)
+    {
+      return migratingEntries;
+    }
+    return entries;
+  }
+
+  /**
+   * Migrates the entries at the index of the given hash code in the {@link #migratingEntries} to the {@link #entries},
+   * followed by the entries at the next {@link #MIGRATION_STRIDE} indices still to be migrated,
+   * so the cost of growing the table is bounded for each addition or removal.
+   */
+  protected final void migrate(int hashCode)
+  {
+    long start = System.nanoTime();
+    Entry<E>[] migratingEntries = this.migratingEntries;
+    migrateIndex(migratingEntries, index(hashCode, migratingEntries.length));
+    migrateIndices(MIGRATION_STRIDE);
+    rehashTime += System.nanoTime() - start;
+  }
+
+  /**
+   * Migrates the entries at the given number of indices of the {@link #migratingEntries}, starting at the {@link #migrationIndex},
+   * and ends the migration once all the indices have been migrated.
+   */
+  private void migrateIndices(int count)
+  {
+    Entry<E>[] migratingEntries = this.migratingEntries;
+    int length = migratingEntries.length;
+    int migrationIndex = this.migrationIndex;
+    int end = count < length - migrationIndex ? migrationIndex + count : length;
+    while (migrationIndex < end)
+    {
+      migrateIndex(migratingEntries, migrationIndex++);
+    }
+    if (migrationIndex == length)
+    {
+      this.migratingEntries = null;
+    }
+    this.migrationIndex = migrationIndex;
+  }
+
+  /**
+   * Moves the entries at the given index of the {@link #migratingEntries} to the {@link #entries}.
+   * A reader traversing the old chain without locking may be led into a chain of the new table and so may fail to find a match, as it may during a {@link #rehash(Entry[]) rehash}.
+   */
+  private void migrateIndex(Entry<E>[] migratingEntries, int index)
+  {
+    Entry<E> entry = migratingEntries[index];
+    if (entry != null)
+    {
+      int capacity = entries.length;
+      do
+      {
+        Entry<E> nextEntry = entry.next;
+        putEntry(index(entry.hashCode, capacity), entry);
+        entry = nextEntry;
+      }
+      while (entry != null);
+      migratingEntries[index] = null;
+    }
+  }
+
   /**
    * Puts the entry into the {@link #entries} linking up the {@link Entry#next chain} for collision handling.
+   * The entry is linked before it's stored so that a reader traversing the chain without locking doesn't see a truncated chain.
    * @param index
    * @param entry
    */
   protected void putEntry(int index, Entry<E> entry)
   {
-    Entry<E> otherEntry = entries[index];
+    entry.next = entries[index];
     entries[index] = entry;
-    entry.next = otherEntry;
+
+    // Reserve the index for the entry's key if it's not already in use.
+    //
+    int[] hashCodes = this.hashCodes;
+    if (hashCodes != null && hashCodes[index] == 0)
+    {
+      hashCodes[index] = key(entry.hashCode);
+      ++usedIndexCount;
+    }
   }
 
   /**
@@ -1002,7 +1423,14 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
   {
     if (ensureCapacity())
     {
-      index = index(entry.hashCode, entries.length);
+      index = indexOf(entries, entry.hashCode);
+    }
+    if (migratingEntries != null)
+    {
+      // Any entries with the same hash code must be migrated to the new table before this entry joins them there.
+      //
+      migrate(entry.hashCode);
+      index = indexOf(entries, entry.hashCode);
     }
     ++size;
     ++modCount;
@@ -1015,10 +1443,31 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
    */
   protected void removeEntry(Entry<E> entry)
   {
-    if (removeEntry(index(entry.hashCode, entries.length), entry))
+    if (migratingEntries != null)
+    {
+      migrate(entry.hashCode);
+    }
+    if (removeEntry(indexOf(entries, entry.hashCode), entry))
+    {
+      --size;
+      ++modCount;
+    }
+  }
+
+  /**
+   * {@link #removeEntry(Entry) Removes} an entry whose referent has been garbage collected, counting it in the {@link #clearedEntryCount}.
+   */
+  protected void removeClearedEntry(Entry<E> entry)
+  {
+    if (migratingEntries != null)
+    {
+      migrate(entry.hashCode);
+    }
+    if (removeEntry(indexOf(entries, entry.hashCode), entry))
     {
       --size;
       ++modCount;
+      ++clearedEntryCount;
     }
   }
 
@@ -1129,9 +1578,7 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
     objectInputStream.defaultReadObject();
     internalQueue = new ReferenceQueue<E>();
     capacityIndex = objectInputStream.readByte();
-    int capacity = PRIME_CAPACITIES[capacityIndex];
-    entries = newEntries(capacity);
-    threshold = capacity * 3 / 4;
+    rehash(newEntries(capacity(capacityIndex)));
     if (size > 0)
     {
       for (int i = 0; i < size; ++i)
@@ -1144,7 +1591,7 @@ public class WeakInterningHashSet<E>  extends AbstractSet<E> implements Internin
         else
         {
           int hashCode = hashCode(object);
-          putEntry(index(hashCode, capacity), newEntry(object, hashCode));
+          putEntry(indexOf(entries, hashCode), newEntry(object, hashCode));
         }
       }
     }
@@ -1,8 +1,26 @@
 package org.eclipse.emf.common.util;
 
 import static org.junit.Assert.*;
-
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.ObjectName;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -759,4 +777,1273 @@ public class URITest {
 		assert URI.decode(str).equals("o/p a%20q#ue");
 	}
 
+	@Test
+	public void testCreateURIs() {
+		String[] strings = { "http://www.eclipse.org/batch/a.xmi", "mailto:batch@eclipse.org", null, "platform:/resource/batch/b.xmi#//c", "http://www.eclipse.org/batch/a.xmi", "../batch/d.xmi?q" };
+		URI[] uris = URI.createURIs(strings);
+		assert uris.length == strings.length;
+		assert uris[2] == null;
+		for (int i = 0; i < strings.length; ++i) {
+			if (strings[i] != null) {
+				assert uris[i].equals(URI.createURI(strings[i]));
+				assert uris[i].toString().equals(strings[i]);
+			}
+		}
+		assert uris[0] == URI.createURI(strings[0]);
+		assert uris[0] == uris[4];
+		assert uris[3].trimFragment() == URI.createURI("platform:/resource/batch/b.xmi");
+		assert uris[3].fragment().equals("//c");
+
+		List<URI> list = URI.createURIs(Arrays.asList(strings[0], strings[5]));
+		assert list.get(0) == uris[0];
+		assert list.get(1) == uris[5];
+	}
+
+	@Test
+	public void testPoolStatistics() throws Exception {
+		URIPool pool = new URIPool(null);
+		URI uri = pool.intern("http://www.eclipse.org/statistics/a.xmi");
+		assert pool.intern(new String("http://www.eclipse.org/statistics/a.xmi")) == uri;
+
+		PoolStatistics statistics = pool.getStatistics();
+		assert statistics.getName().equals("URIPool");
+		assert statistics.getSize() == 1;
+		assert statistics.getHitCounts().get("StringAccessUnit") == 1;
+		assert statistics.getMissCounts().get("StringAccessUnit") == 1;
+		assert statistics.getMissCounts().get("URIComponentsAccessUnit") == 1;
+		assert statistics.getMaximumChainLength() == 1;
+
+		int[] histogram = statistics.getChainLengthHistogram();
+		assert histogram[0] + histogram[1] == statistics.getCapacity();
+
+		pool.grow(10 * statistics.getCapacity());
+		assert statistics.getRehashCount() == 1;
+		assert pool.contains(uri);
+
+		PoolStatistics.registerMBeans();
+		try {
+			ObjectName objectName = new ObjectName(PoolStatistics.OBJECT_NAME_PREFIX + "URIPool");
+			assert ((Number)ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Size")).intValue() > 0;
+		} finally {
+			PoolStatistics.unregisterMBeans();
+		}
+	}
+
+	@Test
+	public void testStripedPool() throws InterruptedException {
+		final URIPool pool = new URIPool(null, 16);
+		assert pool.isStriped();
+		int modCount = pool.modCount;
+		final URI[][] results = new URI[4][1000];
+		Thread[] threads = new Thread[results.length];
+		for (int t = 0; t < threads.length; ++t) {
+			final int offset = t * 1000;
+			final URI[] uris = results[t];
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < uris.length; ++i) {
+						uris[i] = pool.intern("platform:/resource/striped/file" + (offset + i) + ".xmi");
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// The additions made under the stripe locks are accounted for in the size and the mod count once they're folded.
+		//
+		assert pool.size() == 4000;
+		assert pool.modCount - modCount >= 4000;
+		int count = 0;
+		for (Iterator<URI> i = pool.iterator(); i.hasNext(); i.next()) {
+			++count;
+		}
+		assert count == 4000;
+		assert pool.contains(results[3][999]);
+	}
+
+	@Test
+	public void testStripedPoolSharedStrings() throws InterruptedException {
+		final URIPool pool = new URIPool(null, 16);
+		final String[] strings = new String[1000];
+		for (int i = 0; i < strings.length; ++i) {
+			strings[i] = "platform:/resource/shared/folder" + (i % 7) + "/file" + i + ".xmi";
+		}
+		final URI[][] results = new URI[4][strings.length];
+		Thread[] threads = new Thread[results.length];
+		for (int t = 0; t < threads.length; ++t) {
+			final URI[] uris = results[t];
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					// Each thread interns its own copies of the same strings, so the threads race to add each URI.
+					//
+					for (int i = 0; i < uris.length; ++i) {
+						uris[i] = pool.intern(new String(strings[i]));
+					}
+				}
+			};
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// Every thread gets the same instance for each string, and each string is added just once.
+		//
+		for (int t = 1; t < results.length; ++t) {
+			for (int i = 0; i < strings.length; ++i) {
+				assert results[t][i] == results[0][i];
+			}
+		}
+		assert pool.size() == strings.length;
+		for (int i = 0; i < strings.length; ++i) {
+			assert pool.intern(strings[i]) == results[0][i];
+		}
+	}
+
+	@Test
+	public void testConcurrentInternMisses() throws InterruptedException {
+		// The strings are parsed, or copied, without holding a lock, so threads that miss on the same string at once must still agree on the one that's added.
+		//
+		final URIPool uriPool = new URIPool(null);
+		final CommonUtil.StringPool stringPool = new CommonUtil.StringPool();
+		final String[] strings = new String[1000];
+		for (int i = 0; i < strings.length; ++i) {
+			strings[i] = "platform:/resource/miss/folder" + (i % 7) + "/file" + i + ".xmi";
+		}
+		final URI[][] uris = new URI[4][strings.length];
+		final String[][] internedStrings = new String[uris.length][strings.length];
+		Thread[] threads = new Thread[uris.length];
+		for (int t = 0; t < threads.length; ++t) {
+			final int index = t;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < strings.length; ++i) {
+						uris[index][i] = uriPool.intern(new String(strings[i]));
+						internedStrings[index][i] = stringPool.intern(new String(strings[i]));
+					}
+				}
+			};
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int t = 1; t < threads.length; ++t) {
+			for (int i = 0; i < strings.length; ++i) {
+				assert uris[t][i] == uris[0][i];
+				assert internedStrings[t][i] == internedStrings[0][i];
+			}
+		}
+		assert uriPool.size() == strings.length;
+		for (int i = 0; i < strings.length; ++i) {
+			assert uriPool.intern(strings[i]) == uris[0][i];
+			assert stringPool.intern(strings[i]) == internedStrings[0][i];
+		}
+	}
+
+	@Test
+	public void testInternFailureReleasesAccessUnit() {
+		URIPool pool = new URIPool(null);
+		int capacity = Pool.AccessUnit.Queue.LOCAL_CAPACITY;
+
+		// The cache is only weakly referenced by the thread, so hold it while it's inspected.
+		//
+		Pool.AccessUnit.Queue.LocalAccessUnits<URI> localAccessUnits = capacity > 0 ? pool.stringAccessUnits.getLocalAccessUnits() : null;
+
+		// An archive URI without an archive separator fails to parse, but the access unit used to parse it must still be returned and reset.
+		//
+		for (int i = 0; i < 2; ++i) {
+			try {
+				pool.intern("jar:file:/failure/a.zip");
+				fail("An archive URI without an archive separator must be rejected");
+			} catch (IllegalArgumentException exception) {
+				// Expected.
+			}
+			if (capacity > 0) {
+				assert localAccessUnits.size == 1;
+				assert ((StringAccessUnit)localAccessUnits.head).value == null;
+			} else {
+				assert pool.stringAccessUnits.get() != null;
+				assert ((StringAccessUnit)pool.stringAccessUnits.get()).value == null;
+			}
+		}
+
+		// So the next intern on this thread still works.
+		//
+		URI uri = pool.intern("jar:file:/failure/a.zip!/b.xmi");
+		assert uri.isArchive();
+		assert uri.toString().equals("jar:file:/failure/a.zip!/b.xmi");
+		assert pool.intern(new String("jar:file:/failure/a.zip!/b.xmi")) == uri;
+	}
+
+	@Test
+	public void testOpenAddressingPool() {
+		URIPool pool = new URIPool(null, 1, URIPool.OPEN_ADDRESSING);
+		int capacity = pool.getStatistics().getCapacity();
+		URI[] uris = new URI[4 * capacity];
+		for (int i = 0; i < uris.length; ++i) {
+			uris[i] = pool.intern("platform:/resource/open/folder" + (i % 31) + "/file" + i + ".xmi");
+		}
+		assert pool.getStatistics().getCapacity() > capacity;
+		assert pool.getStatistics().getSize() == uris.length;
+		for (int i = 0; i < uris.length; ++i) {
+			assert pool.intern(new String(uris[i].toString())) == uris[i];
+			assert pool.contains(uris[i]);
+		}
+	}
+
+	@Test
+	public void testPowerOfTwoPool() {
+		for (int options : new int[] { URIPool.POWER_OF_TWO, URIPool.POWER_OF_TWO | URIPool.OPEN_ADDRESSING }) {
+			URIPool pool = new URIPool(null, 1, options);
+			URI[] uris = new URI[5000];
+			for (int i = 0; i < uris.length; ++i) {
+				uris[i] = pool.intern("platform:/resource/power/folder" + (i % 31) + "/file" + i + ".xmi");
+			}
+			int capacity = pool.getStatistics().getCapacity();
+			assert Integer.bitCount(capacity) == 1;
+			assert capacity >= uris.length;
+			assert pool.getStatistics().getMaximumChainLength() < 10;
+			for (int i = 0; i < uris.length; ++i) {
+				assert pool.intern(new String(uris[i].toString())) == uris[i];
+			}
+		}
+	}
+
+	@Test
+	public void testIncrementalRehashPool() {
+		URIPool pool = new URIPool(null, 1, URIPool.INCREMENTAL_REHASH);
+		URI[] uris = new URI[5000];
+		boolean migrated = false;
+		for (int i = 0; i < uris.length; ++i) {
+			uris[i] = pool.intern("platform:/resource/incremental/folder" + (i % 31) + "/file" + i + ".xmi");
+			if (pool.migratingEntries != null) {
+				migrated = true;
+				assert pool.intern(new String(uris[0].toString())) == uris[0];
+				assert pool.contains(uris[i]);
+			}
+		}
+		assert migrated;
+		assert pool.getStatistics().getRehashCount() > 0;
+
+		Set<URI> iterated = new HashSet<URI>(pool);
+		assert iterated.size() == uris.length;
+		for (int i = 0; i < uris.length; ++i) {
+			assert iterated.contains(uris[i]);
+			assert pool.intern(new String(uris[i].toString())) == uris[i];
+		}
+	}
+
+	@Test
+	public void testPresizedPool() {
+		URIPool pool = new URIPool(null, 20000, 1, 0, 0.9f);
+		assert pool.getStatistics().getCapacity() >= 20000;
+		for (int i = 0; i < 18000; ++i) {
+			pool.intern("platform:/resource/presized/file" + i + ".xmi");
+		}
+		assert pool.getStatistics().getRehashCount() == 0;
+
+		try {
+			new URIPool(null, 1031, 1, URIPool.OPEN_ADDRESSING, 1.0f);
+			fail();
+		} catch (IllegalArgumentException exception) {
+			// Expected.
+		}
+
+		System.setProperty("org.eclipse.emf.common.util.PresizedPool.loadFactor", "0.6");
+		System.setProperty("org.eclipse.emf.common.util.InvalidPool.loadFactor", "-1");
+		try {
+			assert Pool.getLoadFactorProperty("PresizedPool") == 0.6f;
+			assert Pool.getLoadFactorProperty("InvalidPool") == Pool.defaultLoadFactor(Pool.getOptionsProperty("InvalidPool"));
+		} finally {
+			System.clearProperty("org.eclipse.emf.common.util.PresizedPool.loadFactor");
+			System.clearProperty("org.eclipse.emf.common.util.InvalidPool.loadFactor");
+		}
+	}
+
+	@Test
+	public void testPoolSnapshot() throws Exception {
+		String[] strings = { "http://www.eclipse.org/snapshot/a.xmi?q", "platform:/resource/snapshot/b.xmi", "mailto:snapshot@eclipse.org", "../snapshot/c.xmi", "file:/C:/snapshot/d\u00e9\u4e2d.xmi", "http://snapshot" };
+
+		// URIs from a private pool aren't in the shared pool, so reading the snapshot must add them.
+		//
+		URIPool pool = new URIPool(null);
+		List<URI> uris = new ArrayList<URI>();
+		for (String string : strings) {
+			uris.add(pool.intern(string));
+		}
+		uris.add(null);
+		uris.add(URI.createURI("http://www.eclipse.org/snapshot/e.xmi#fragment"));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		PoolSnapshot.write(outputStream, uris);
+
+		URI[] snapshotURIs = PoolSnapshot.read(ByteBuffer.wrap(outputStream.toByteArray()));
+		assert snapshotURIs.length == strings.length + 2;
+		for (int i = 0; i < strings.length; ++i) {
+			assert snapshotURIs[i] != uris.get(i);
+			assert snapshotURIs[i].equals(uris.get(i));
+			assert snapshotURIs[i].toString().equals(strings[i]);
+			assert URI.createURI(strings[i]) == snapshotURIs[i];
+		}
+
+		// A URI with a fragment is preceded by its base, unless the base is already written.
+		//
+		assert snapshotURIs[strings.length] == URI.createURI("http://www.eclipse.org/snapshot/e.xmi");
+		assert snapshotURIs[strings.length + 1] == uris.get(strings.length + 1);
+
+		// A URI with a fragment from a context's pool is read into the shared pool.
+		//
+		URIPoolContext context = new URIPoolContext("snapshot", 0);
+		URIPoolContext.setCurrent(context);
+		List<URI> contextURIs;
+		try {
+			contextURIs = Arrays.asList(URI.createURI("platform:/resource/snapshot/g.xmi"), URI.createURI("platform:/resource/snapshot/g.xmi#//@x.1"));
+		} finally {
+			URIPoolContext.setCurrent(null);
+			context.dispose();
+		}
+		outputStream = new ByteArrayOutputStream();
+		PoolSnapshot.write(outputStream, contextURIs);
+		snapshotURIs = PoolSnapshot.read(ByteBuffer.wrap(outputStream.toByteArray()));
+		assert snapshotURIs.length == 2;
+		assert snapshotURIs[0] == URI.createURI("platform:/resource/snapshot/g.xmi");
+		assert snapshotURIs[1] == URI.createURI("platform:/resource/snapshot/g.xmi#//@x.1");
+		assert snapshotURIs[1] != contextURIs.get(1) && snapshotURIs[1].trimFragment() == snapshotURIs[0];
+
+		File file = File.createTempFile("snapshot", ".bin");
+		try {
+			assert PoolSnapshot.write(file) > 0;
+			URI[] allURIs = PoolSnapshot.read(file);
+			assert Arrays.asList(allURIs).containsAll(Arrays.asList(snapshotURIs));
+		} finally {
+			file.delete();
+		}
+
+		try {
+			PoolSnapshot.read(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+			fail();
+		} catch (IOException exception) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testTamperedPoolSnapshot() throws Exception {
+		URIPool pool = new URIPool(null);
+		URI uri = pool.intern("platform:/resource/tampered/model/a.xmi?q");
+		URI fragmentURI = URI.createURI("platform:/resource/tampered/model/b.xmi#//@tampered");
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		PoolSnapshot.write(outputStream, Arrays.asList(uri, fragmentURI));
+		byte[] bytes = outputStream.toByteArray();
+
+		// Tampering with the hash code of a string, of a segment array, of a URI, or of a URI with a fragment is detected before anything is interned with it.
+		//
+		int[] hashCodes = { "tampered".hashCode(), Arrays.hashCode(uri.segments()), uri.hashCode(), fragmentURI.hashCode() };
+		for (int hashCode : hashCodes) {
+			byte[] tamperedBytes = bytes.clone();
+			ByteBuffer buffer = ByteBuffer.wrap(tamperedBytes);
+			int index = indexOf(buffer, hashCode);
+			assert index != -1 : hashCode;
+			buffer.putInt(index, hashCode + 1);
+			try {
+				PoolSnapshot.read(ByteBuffer.wrap(tamperedBytes));
+				fail("A tampered hash code must be detected");
+			} catch (IOException exception) {
+				assert exception.getMessage().equals("Corrupt URI snapshot");
+			}
+		}
+
+		URI[] snapshotURIs = PoolSnapshot.read(ByteBuffer.wrap(bytes));
+		assert snapshotURIs[0] == URI.createURI("platform:/resource/tampered/model/a.xmi?q");
+		assert snapshotURIs[2] == fragmentURI;
+	}
+
+	/**
+	 * Returns the index of the last occurrence of the integer in the buffer, or -1 if there isn't one.
+	 */
+	private static int indexOf(ByteBuffer buffer, int value) {
+		for (int i = buffer.limit() - 4; i >= 0; --i) {
+			if (buffer.getInt(i) == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	public void testCreateURIFromBytes() throws Exception {
+		String[] strings = { "http://www.eclipse.org/bytes/a.xmi?q", "platform:/resource/bytes/b.xmi", "mailto:bytes@eclipse.org", "../bytes/c.xmi", "file:/C:/bytes/d\u00e9\u4e2d\ud83d\ude00.xmi", "http://bytes/e.xmi#//@contents.0", "http://bytes/\u00e9.xmi#\u4e2d\ud83d\ude00", "" };
+		for (String string : strings) {
+			URI uri = URI.createURI(string);
+			byte[] bytes = string.getBytes("UTF-8");
+			URI bytesURI = URI.createURI(bytes, 0, bytes.length);
+			assert bytesURI.equals(uri);
+			assert bytesURI.toString().equals(string);
+			assert bytesURI == uri;
+
+			// A range within a larger array, a heap buffer, and a direct buffer, none of whose positions change.
+			//
+			byte[] paddedBytes = ("<" + string + ">").getBytes("UTF-8");
+			assert URI.createURI(paddedBytes, 1, bytes.length).equals(uri);
+			ByteBuffer buffer = ByteBuffer.wrap(paddedBytes, 1, bytes.length);
+			assert URI.createURI(buffer).equals(uri);
+			assert buffer.position() == 1;
+			ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length + 1);
+			directBuffer.put((byte)'<').put(bytes).flip().position(1);
+			assert URI.createURI(directBuffer) == uri;
+			assert directBuffer.position() == 1;
+		}
+
+		// Parsing from bytes adds the URI to the pool, so the string finds it.
+		//
+		URIPool pool = new URIPool(null);
+		byte[] bytes = "platform:/resource/bytes/f\u00e9.xmi".getBytes("UTF-8");
+		URI uri = pool.intern(bytes, 0, bytes.length);
+		assert pool.intern("platform:/resource/bytes/f\u00e9.xmi") == uri;
+		assert pool.intern(bytes, 0, bytes.length) == uri;
+
+		// URIs created from components don't have a cached string, so they're matched component by component.
+		//
+		URI hierarchicalURI = URI.createHierarchicalURI("http", "bytes", null, new String[] { "g\u00e9.xmi" }, "q", null);
+		bytes = "http://bytes/g\u00e9.xmi?q".getBytes("UTF-8");
+		assert URI.createURI(bytes, 0, bytes.length) == hierarchicalURI;
+		URI opaqueURI = URI.createGenericURI("mailto", "g@bytes", null);
+		bytes = "mailto:g@bytes".getBytes("UTF-8");
+		assert URI.createURI(bytes, 0, bytes.length) == opaqueURI;
+
+		// Malformed bytes are decoded as replacement characters, just as for a string.
+		//
+		byte[] malformedBytes = { 'h', 't', 't', 'p', ':', '/', '/', 'a', '/', (byte)0xC3, 'b', (byte)0xFF, (byte)0xE4, (byte)0xB8 };
+		assert URI.createURI(malformedBytes, 0, malformedBytes.length).equals(URI.createURI(new String(malformedBytes, "UTF-8")));
+		byte[] overlongBytes = { 'a', ':', (byte)0xC0, (byte)0xAF };
+		assert URI.createURI(overlongBytes, 0, overlongBytes.length).equals(URI.createURI(new String(overlongBytes, "UTF-8")));
+		byte[] malformedFragmentBytes = { 'h', 't', 't', 'p', ':', '/', '/', 'a', '/', (byte)0xC3, '#', 'b', (byte)0xE4 };
+		assert URI.createURI(malformedFragmentBytes, 0, malformedFragmentBytes.length) == URI.createURI(new String(malformedFragmentBytes, "UTF-8"));
+	}
+
+	@Test
+	public void testCreateURIFromCharacters() {
+		String[] strings = { "http://www.eclipse.org/characters/a.xmi?q", "platform:/resource/characters/b.xmi", "mailto:characters@eclipse.org", "../characters/c.xmi", "file:/C:/characters/d\u00e9\u4e2d.xmi", "http://characters/e.xmi#//@contents.0", "" };
+		for (String string : strings) {
+			URI uri = URI.createURI(string);
+			String paddedString = "<a href=\"" + string + "\"/>";
+			int start = paddedString.indexOf('"') + 1;
+			int end = start + string.length();
+			char[] characters = paddedString.toCharArray();
+			assert URI.createURI(characters, start, string.length()).equals(uri);
+			assert URI.createURI(paddedString, start, end).equals(uri);
+			assert URI.createURI(new StringBuilder(paddedString), start, end).equals(uri);
+			assert URI.createURI(CharBuffer.wrap(characters), start, end).equals(uri);
+			assert URI.createURI(string, 0, string.length()).equals(uri);
+			if (!uri.hasFragment()) {
+				assert URI.createURI(characters, start, string.length()) == uri;
+				assert URI.createURI(new StringBuilder(paddedString), start, end) == uri;
+			}
+		}
+
+		// URIs created from components don't have a cached string, so they're matched in place component by component.
+		//
+		URI hierarchicalURI = URI.createHierarchicalURI("http", "characters", null, new String[] { "f.xmi" }, "q", null);
+		char[] characters = "[http://characters/f.xmi?q]".toCharArray();
+		assert URI.createURI(characters, 1, characters.length - 2) == hierarchicalURI;
+		assert URI.createURI(new StringBuilder("[http://characters/f.xmi?q]"), 1, characters.length - 1) == hierarchicalURI;
+		URI opaqueURI = URI.createGenericURI("mailto", "f@characters", null);
+		characters = "[mailto:f@characters]".toCharArray();
+		assert URI.createURI(characters, 1, characters.length - 2) == opaqueURI;
+
+		// A URI that's not yet pooled is parsed and added to the pool.
+		//
+		URIPool pool = new URIPool(null);
+		characters = "platform:/resource/characters/g.xmi".toCharArray();
+		URI uri = pool.intern(characters, 0, characters.length);
+		assert uri.toString().equals("platform:/resource/characters/g.xmi");
+		assert pool.intern("platform:/resource/characters/g.xmi") == uri;
+		assert pool.intern(new StringBuilder("platform:/resource/characters/g.xmi"), 0, characters.length) == uri;
+	}
+
+	@Test
+	public void testFragmentPool() {
+		String[] strings = { "platform:/resource/fragment/a.xmi#//@foo.1", "http://www.eclipse.org/fragment/b.xmi?q#_x1", "mailto:fragment@eclipse.org#", "../fragment/c.xmi#/", "#//@contents.0" };
+		for (String string : strings) {
+			URI uri = URI.createURI(string);
+			assert uri.hasFragment();
+			assert uri.toString().equals(string);
+			assert uri.hashCode() == string.hashCode();
+
+			// The same instance is found for a copy of the string, for a range of a sequence, and for the base with the fragment appended.
+			//
+			assert URI.createURI(new String(string)) == uri;
+			assert URI.createURI(new StringBuilder("<" + string + ">"), 1, string.length() + 1) == uri;
+			assert URI.createURI(string.toCharArray(), 0, string.length()) == uri;
+			assert URI.createURI(("<" + string + ">").toCharArray(), 1, string.length()) == uri;
+			assert URI.createURI(string.getBytes(), 0, string.length()) == uri;
+			ByteBuffer directBuffer = ByteBuffer.allocateDirect(string.length());
+			directBuffer.put(string.getBytes()).flip();
+			assert URI.createURI(directBuffer) == uri;
+			assert uri.trimFragment().appendFragment(uri.fragment()) == uri;
+			assert uri.trimFragment().appendFragment(uri.fragment()).fragment().equals(string.substring(string.indexOf('#') + 1));
+
+			// A different base or a different fragment is a different instance.
+			//
+			assert URI.createURI(string + "x") != uri;
+			assert URI.createURI("http://fragment/x.xmi").appendFragment(uri.fragment()) != uri;
+		}
+
+		// Operations that preserve the fragment of a URI produce the same instance as creating it directly.
+		//
+		URI relativeURI = URI.createURI("../d.xmi#//@foo.2");
+		URI baseURI = URI.createURI("platform:/resource/fragment/folder/e.xmi");
+		URI resolvedURI = relativeURI.resolve(baseURI);
+		assert resolvedURI == URI.createURI("platform:/resource/fragment/d.xmi#//@foo.2");
+		assert resolvedURI.deresolve(baseURI) == relativeURI;
+
+		// URIs created from components don't have a cached string, so their base is matched component by component.
+		//
+		URI hierarchicalURI = URI.createHierarchicalURI("http", "fragment", null, new String[] { "f.xmi" }, null, "//@foo.3");
+		assert URI.createURI("http://fragment/f.xmi#//@foo.3") == hierarchicalURI;
+		assert URI.createURI("http://fragment/f.xmi#//@foo.4") != hierarchicalURI;
+	}
+
+	@Test
+	public void testCharacterClassScanning() {
+		// Characters whose low six bits select a separator's bit must not match it, i.e., 'o' and '\u012f' are not '/', and '\u007f' is not '?'.
+		//
+		assert URI.validSegment("foo\u012f\u007f");
+		assert !URI.validSegment("foo/bar");
+		assert !URI.validSegment("foo?bar");
+		assert !URI.validSegment("foo#bar");
+		assert URI.validSegments(new String[] { "org.eclipse.emf.ecore", "model", "\u00e9t\u00e9" });
+		assert !URI.validSegments(new String[] { "org.eclipse.emf.ecore", "mod/el" });
+		assert URI.validScheme("platform");
+		assert !URI.validScheme("plat:form");
+
+		// A string that needs no escapes is returned as is.
+		//
+		String str = "org.eclipse.emf.ecore\u00e9\u012f";
+		assert URI.encodeSegment(str, false) == str;
+
+		// Escapes are copied around the runs of characters that don't need them, including characters from 0x80 to 0x9F, but not those above.
+		//
+		assert URI.encodeSegment(" a/b?c#d ", false).equals("%20a%2Fb%3Fc%23d%20");
+		assert URI.encodeSegment("a\u0080b\u009f\u00a0c", false).equals("a%80b%9F\u00a0c");
+		assert URI.encodeSegment("%41%4", true).equals("%41%254");
+		assert URI.encodeSegment("%41%4", false).equals("%2541%254");
+		assert URI.encodeFragment("//@foo.1/bar baz", false).equals("//@foo.1/bar%20baz");
+	}
+
+	@Test
+	public void testEncodeDecodeAppendable() throws Exception {
+		String str = "/op a%20q#ue \u00e9\u20ac\ud83d\ude00";
+		StringBuilder result = new StringBuilder("<");
+		URI.encodeSegment(str, false, result);
+		assert result.toString().equals("<" + URI.encodeSegment(str, false));
+		result.setLength(0);
+		URI.encodeOpaquePart(str, true, result);
+		assert result.toString().equals(URI.encodeOpaquePart(str, true));
+		result.setLength(0);
+		URI.encodeAuthority(str, true, result);
+		URI.encodeQuery(str, true, result);
+		URI.encodeFragment(null, true, result);
+		URI.encodeFragment(str, false, result);
+		assert result.toString().equals(URI.encodeAuthority(str, true) + URI.encodeQuery(str, true) + URI.encodeFragment(str, false));
+
+		// Multi-byte UTF-8 escapes decode to their characters, including a surrogate pair, while incomplete ones are left as bytes.
+		//
+		String encoded = "a%20b%C3%A9%E2%82%AC%F0%9F%98%80%C3%41%4";
+		String decoded = "a b\u00e9\u20ac\ud83d\ude00\uffc3A%4";
+		assert URI.decode(encoded).equals(decoded);
+		assert URI.decode("abc") == "abc";
+		result.setLength(0);
+		URI.decode(encoded, result);
+		URI.decode(null, result);
+		URI.decode("abc", result);
+		assert result.toString().equals(decoded + "abc");
+	}
+
+	@Test
+	public void testDecodedValueCache() {
+		// The decoded forms are computed once and then returned as is for as long as they're held.
+		//
+		URI fileURI = URI.createFileURI(File.separator + "decoded" + File.separator + "a b" + File.separator + "\u00e9t\u00e9.txt");
+		String fileString = fileURI.toFileString();
+		assert fileString.equals(File.separator + "decoded" + File.separator + "a b" + File.separator + "\u00e9t\u00e9.txt");
+		assert fileURI.toFileString() == fileString;
+		assert URI.createURI("http://decoded/a.txt").toFileString() == null;
+
+		URI platformURI = URI.createPlatformResourceURI("/decoded/a b/c%d.ecore", true);
+		String platformString = platformURI.toPlatformString(true);
+		assert platformString.equals("/decoded/a b/c%d.ecore");
+		assert platformURI.toPlatformString(true) == platformString;
+		assert platformURI.toPlatformString(false).equals("/decoded/a%20b/c%25d.ecore");
+
+		List<String> decodedSegments = platformURI.decodedSegmentsList();
+		assert decodedSegments.equals(Arrays.asList("resource", "decoded", "a b", "c%d.ecore"));
+		assert platformURI.decodedSegmentsList() == decodedSegments;
+		assert platformURI.appendFragment("//@foo").decodedSegmentsList() == decodedSegments;
+		try {
+			decodedSegments.set(0, "x");
+			fail("Decoded segments must be unmodifiable");
+		} catch (UnsupportedOperationException exception) {
+			// Expected.
+		}
+
+		// Segments without escapes are shared with the URI itself.
+		//
+		URI uri = URI.createURI("platform:/resource/decoded/b.ecore");
+		assert uri.decodedSegmentsList().get(2) == uri.segment(2);
+		assert URI.createURI("mailto:decoded@eclipse.org").decodedSegmentsList().isEmpty();
+	}
+
+	@Test
+	public void testResolveCache() {
+		// Resolving with and without preserving root parents are cached separately.
+		//
+		URI relativeURI = URI.createURI("../../../resolve/types.ecore");
+		URI baseURI = URI.createURI("http://resolve/model/library.ecore");
+		URI preservedURI = relativeURI.resolve(baseURI, true);
+		URI collapsedURI = relativeURI.resolve(baseURI, false);
+		assert preservedURI.toString().equals("http://resolve/../../resolve/types.ecore");
+		assert collapsedURI.toString().equals("http://resolve/resolve/types.ecore");
+		assert URI.RESOLVE_CACHE.get(relativeURI, baseURI, 1) == preservedURI;
+		assert URI.RESOLVE_CACHE.get(relativeURI, baseURI, 0) == collapsedURI;
+		assert relativeURI.resolve(baseURI, true) == preservedURI;
+		assert relativeURI.resolve(baseURI, false) == collapsedURI;
+
+		// A URI with a fragment resolves its base through the cache.
+		//
+		URI fragmentURI = relativeURI.appendFragment("//Types");
+		assert fragmentURI.resolve(baseURI) == preservedURI.appendFragment("//Types");
+
+		// When a set is full, the CLOCK hand replaces the first entry that hasn't been used since it last passed.
+		//
+		URIPairCache cache = new URIPairCache("URIPairCacheTest", URIPairCache.WAYS);
+		URI[] uris = new URI[URIPairCache.WAYS + 1];
+		for (int i = 0; i < uris.length; ++i) {
+			uris[i] = URI.createURI("resolve" + i + ".ecore");
+		}
+		for (int i = 0; i < URIPairCache.WAYS; ++i) {
+			cache.put(uris[i], baseURI, 0, uris[i]);
+		}
+		for (int i = 0; i < URIPairCache.WAYS; ++i) {
+			assert cache.get(uris[i], baseURI, 0) == uris[i];
+		}
+		assert cache.get(uris[0], baseURI, 1) == null;
+		assert cache.get(uris[1], uris[0], 0) == null;
+		for (int i = 0; i < URIPairCache.WAYS; ++i) {
+			cache.entries[i].referenced = i != 2;
+		}
+		cache.put(uris[URIPairCache.WAYS], baseURI, 0, uris[URIPairCache.WAYS]);
+		assert cache.get(uris[URIPairCache.WAYS], baseURI, 0) == uris[URIPairCache.WAYS];
+		assert cache.get(uris[2], baseURI, 0) == null;
+		assert cache.get(uris[0], baseURI, 0) == uris[0];
+		assert cache.get(uris[1], baseURI, 0) == uris[1];
+
+		// A capacity of zero disables the cache.
+		//
+		System.setProperty("org.eclipse.emf.common.util.DisabledURIPairCacheTest.capacity", "0");
+		try {
+			URIPairCache disabledCache = new URIPairCache("DisabledURIPairCacheTest", URIPairCache.WAYS);
+			disabledCache.put(uris[0], baseURI, 0, uris[0]);
+			assert disabledCache.get(uris[0], baseURI, 0) == null;
+		} finally {
+			System.clearProperty("org.eclipse.emf.common.util.DisabledURIPairCacheTest.capacity");
+		}
+	}
+
+	@Test
+	public void testDeresolveCache() {
+		URI baseURI = URI.createURI("platform:/resource/deresolve/model/library.ecore");
+		URI siblingURI = URI.createURI("platform:/resource/deresolve/model/types.ecore");
+		URI distantURI = URI.createURI("platform:/resource/other/types.ecore");
+
+		URI relativeURI = siblingURI.deresolve(baseURI);
+		assert relativeURI.toString().equals("types.ecore");
+		assert siblingURI.deresolve(baseURI) == relativeURI;
+		assert URI.DERESOLVE_CACHE.get(siblingURI, baseURI, 1 | 4) == relativeURI;
+		assert relativeURI.resolve(baseURI) == siblingURI;
+
+		// Each combination of flags is cached separately.
+		//
+		URI shorterURI = distantURI.deresolve(baseURI, true, false, true);
+		URI anyURI = distantURI.deresolve(baseURI, true, true, false);
+		assert shorterURI.toString().equals("/resource/other/types.ecore");
+		assert anyURI.toString().equals("../../other/types.ecore");
+		assert URI.DERESOLVE_CACHE.get(distantURI, baseURI, 1 | 4) == shorterURI;
+		assert URI.DERESOLVE_CACHE.get(distantURI, baseURI, 1 | 2) == anyURI;
+		URI absoluteURI = URI.createURI("platform:/r/x").deresolve(URI.createURI("platform:/resource/deresolve/model/a/b/c/library.ecore"), true, false, true);
+		assert absoluteURI.toString().equals("/r/x");
+
+		// Identical and equal segments are the same reference, so they're a current document reference or a common prefix.
+		//
+		assert baseURI.deresolve(baseURI).toString().equals("");
+		assert URI.createURI("platform:/resource/deresolve/model/").deresolve(baseURI).toString().equals(".");
+		assert URI.createURI("platform:/resource/deresolve/model/library.ecore?q").deresolve(baseURI).toString().equals("library.ecore?q");
+		assert URI.createURI("platform:/resource/deresolve/model/library.ecore#//Book").deresolve(baseURI).toString().equals("#//Book");
+	}
+
+	@Test
+	public void testSegmentsStack() {
+		// The stack maintains the hash code of its segments as they're pushed and popped, and interns them as an array.
+		//
+		SegmentSequence.StringArrayPool pool = SegmentSequence.STRING_ARRAY_POOL;
+		SegmentSequence.StringArrayPool.SegmentsStackAccessUnit stack = pool.getSegmentsStack(2);
+		stack.push("stack");
+		stack.push("a");
+		stack.pop();
+		stack.push("b");
+		stack.push("c");
+		assert stack.size() == 3;
+		assert stack.peek() == "c";
+		assert stack.hashCode == Arrays.hashCode(new String[] { "stack", "b", "c" });
+		String[] segments = pool.intern(stack);
+		assert Arrays.equals(segments, new String[] { "stack", "b", "c" });
+		assert pool.intern(new String[] { "stack", "b", "c" }, 0, 3) == segments;
+
+		// A stack that's reused is empty and doesn't retain references to the segments.
+		//
+		SegmentSequence.StringArrayPool.SegmentsStackAccessUnit reusedStack = pool.getSegmentsStack(1);
+		assert reusedStack.size() == 0;
+		assert reusedStack.hashCode == Arrays.hashCode(new String[0]);
+		assert pool.intern(reusedStack).length == 0;
+		for (String segment : reusedStack.stack) {
+			assert segment == null;
+		}
+
+		// Resolving a relative path, and collapsing a path, produce the pooled segments of the equivalent URI.
+		//
+		URI baseURI = URI.createURI("http://stack/a/b/c/d.xmi");
+		URI expectedURI = URI.createURI("http://stack/a/e/f.xmi");
+		URI resolvedURI = URI.createURI("../../e/./f.xmi").resolve(baseURI);
+		assert resolvedURI == expectedURI;
+		assert resolvedURI.rawSegments() == expectedURI.rawSegments();
+		assert URI.createURI("../../../../../x/").resolve(baseURI, true).toString().equals("http://stack/../../x/");
+		assert URI.createURI("../../../../../x/").resolve(baseURI, false).toString().equals("http://stack/x/");
+		assert URI.createURI("..").resolve(baseURI).toString().equals("http://stack/a/b/");
+		assert URI.createURI("").resolve(baseURI) == baseURI;
+		URI collapsibleURI = URI.createURI("http://stack/a/./b/../e/f.xmi");
+		assert expectedURI.deresolve(collapsibleURI).toString().equals("f.xmi");
+		assert URI.createURI("http://stack/a/g.xmi").deresolve(collapsibleURI, true, true, false).toString().equals("../g.xmi");
+	}
+
+	@Test
+	public void testURIPrefixMap() {
+		URIPrefixMap map = new URIPrefixMap();
+		URI resourcePrefix = URI.createURI("platform:/resource/");
+		URI projectPrefix = URI.createURI("platform:/resource/prefix/");
+		URI modelPrefix = URI.createURI("platform:/resource/prefix/model/");
+		URI rootPrefix = URI.createURI("http://prefix/");
+		assert map.put(resourcePrefix, URI.createURI("file:/workspace/")) == null;
+		assert map.put(projectPrefix, URI.createURI("file:/old/")) == null;
+		assert map.put(projectPrefix, URI.createURI("file:/projects/prefix/")).equals(URI.createURI("file:/old/"));
+		assert map.put(modelPrefix, URI.createURI("http://www.eclipse.org/models/")) == null;
+		assert map.put(rootPrefix, URI.createURI("file:/root/")) == null;
+		assert map.size() == 4;
+		assert map.get(projectPrefix) == URI.createURI("file:/projects/prefix/");
+		assert map.get(URI.createURI("platform:/resource/prefix/other/")) == null;
+
+		// The longest registered prefix is replaced, with the same result as replacing it directly.
+		//
+		String[][] expectations = {
+			{ "platform:/resource/prefix/model/library.ecore", "http://www.eclipse.org/models/library.ecore" },
+			{ "platform:/resource/prefix/model/", "http://www.eclipse.org/models/" },
+			{ "platform:/resource/prefix/model", "file:/projects/prefix/model" },
+			{ "platform:/resource/prefix/src/a.java?q#f", "file:/projects/prefix/src/a.java?q#f" },
+			{ "platform:/resource/other/a.xmi", "file:/workspace/other/a.xmi" },
+			{ "http://prefix/a/b", "file:/root/a/b" },
+			{ "http://prefix/", "file:/root" },
+			{ "platform:/plugin/prefix/a.xmi", null },
+			{ "http://other/a", null },
+			{ "prefix/model/a.xmi", null },
+			{ "mailto:prefix@eclipse.org", null },
+		};
+		for (String[] expectation : expectations) {
+			URI uri = URI.createURI(expectation[0]);
+			URI result = map.replacePrefix(uri);
+			assert expectation[1] == null ? result == null : result == URI.createURI(expectation[1]) : expectation[0] + " -> " + result;
+		}
+		assert map.replacePrefix(URI.createURI("platform:/resource/prefix/model/a.ecore")) == URI.createURI("platform:/resource/prefix/model/a.ecore").replacePrefix(modelPrefix, map.get(modelPrefix));
+
+		// A relative prefix applies to relative URIs.
+		//
+		map.put(URI.createURI("prefix/"), URI.createURI("../other/"));
+		assert map.replacePrefix(URI.createURI("prefix/model/a.xmi")) == URI.createURI("../other/model/a.xmi");
+
+		// Removing a prefix exposes the shorter prefixes.
+		//
+		assert map.remove(modelPrefix) != null;
+		assert map.remove(modelPrefix) == null;
+		assert map.size() == 4;
+		assert map.replacePrefix(URI.createURI("platform:/resource/prefix/model/library.ecore")) == URI.createURI("file:/projects/prefix/model/library.ecore");
+		map.remove(projectPrefix);
+		map.remove(resourcePrefix);
+		assert map.replacePrefix(URI.createURI("platform:/resource/prefix/model/library.ecore")) == null;
+
+		try {
+			map.put(URI.createURI("platform:/resource/prefix"), projectPrefix);
+			fail("A non-prefix must be rejected");
+		} catch (IllegalArgumentException exception) {
+			// Expected.
+		}
+	}
+
+	@Test
+	public void testLocalAccessUnits() throws InterruptedException {
+		final Pool.ObjectAccessUnit.Queue<String> queue = new Pool.ObjectAccessUnit.Queue<String>();
+		int capacity = Pool.AccessUnit.Queue.LOCAL_CAPACITY;
+		assumeTrue(capacity > 0);
+
+		// The cache is only weakly referenced by the thread, so hold it while it's inspected.
+		//
+		Pool.AccessUnit.Queue.LocalAccessUnits<String> localAccessUnits = queue.getLocalAccessUnits();
+
+		// A thread gets back the access units it returned, up to the capacity of its cache, beyond which they're shared.
+		//
+		List<Pool.AccessUnit<String>> accessUnits = new ArrayList<Pool.AccessUnit<String>>();
+		for (int i = 0; i <= capacity; ++i) {
+			accessUnits.add(queue.pop(false));
+		}
+		for (Pool.AccessUnit<String> accessUnit : accessUnits) {
+			accessUnit.reset(false);
+		}
+		assert queue.get() == accessUnits.get(capacity);
+		assert queue.getLocalAccessUnits() == localAccessUnits && localAccessUnits.size == capacity;
+
+		final List<Pool.AccessUnit<String>> otherAccessUnits = new ArrayList<Pool.AccessUnit<String>>();
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				otherAccessUnits.add(queue.pop(false));
+				otherAccessUnits.add(queue.pop(false));
+			}
+		};
+		thread.start();
+		thread.join();
+		assert otherAccessUnits.get(0) == accessUnits.get(capacity);
+		assert !accessUnits.contains(otherAccessUnits.get(1));
+
+		for (int i = capacity - 1; i >= 0; --i) {
+			assert queue.pop(false) == accessUnits.get(i);
+		}
+		assert queue.getLocalAccessUnits().size == 0;
+		assert !accessUnits.contains(queue.pop(false));
+	}
+
+	@Test
+	public void testDiscardedPoolIsCollectable() throws InterruptedException {
+		// The access units cached by this thread for the pool's queues must not keep the pool reachable.
+		//
+		URIPool pool = new URIPool(CommonUtil.REFERENCE_CLEARING_QUEUE);
+		URI uri = pool.intern("platform:/resource/discarded/a.xmi");
+		assert pool.intern(new String("platform:/resource/discarded/a.xmi")) == uri;
+		assert pool.intern(uri.toString().getBytes(), 0, uri.toString().length()) == uri;
+		WeakReference<URIPool> reference = new WeakReference<URIPool>(pool);
+		pool = null;
+		uri = null;
+		for (int attempt = 0; attempt < 10 && reference.get() != null; ++attempt) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assert reference.get() == null;
+	}
+
+	@Test
+	public void testBatchedReferenceClearing() throws InterruptedException {
+		ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+		Pool<String> pool = new Pool<String>(1031, null, queue);
+		Pool<String> otherPool = new Pool<String>(1031, null, queue);
+		List<String> strings = new ArrayList<String>();
+		for (int i = 0; i < 100; ++i) {
+			strings.add(pool.intern(new String("batched" + i)));
+			strings.add(otherPool.intern(new String("other" + i)));
+		}
+		final int[] clearCount = new int[1];
+		Object referent = new Object();
+		Reference<Object> otherReference = new WeakReference<Object>(referent, queue) {
+			@Override
+			public void clear() {
+				++clearCount[0];
+				super.clear();
+			}
+		};
+		assert pool.size() == 100 && otherPool.size() == 100;
+
+		// The entries remain in their pools until the references removed from the queue are cleared.
+		//
+		strings = null;
+		referent = null;
+		Reference<?>[] references = new Reference<?>[256];
+		int count = 0;
+		for (long end = System.currentTimeMillis() + 10000; count < 201 && System.currentTimeMillis() < end; ) {
+			System.gc();
+			for (Reference<?> reference; count < references.length && (reference = queue.remove(10)) != null; ) {
+				references[count++] = reference;
+			}
+		}
+		assumeTrue(count == 201);
+		assert pool.size() == 100 && otherPool.size() == 100;
+
+		Pool.clear(references, count);
+		assert pool.size() == 0 && otherPool.size() == 0;
+		assert clearCount[0] == 1 && otherReference.get() == null;
+		for (int i = 0; i < count; ++i) {
+			assert references[i] == null;
+		}
+		assert pool.getStatistics().getClearedEntryCount() == 100;
+	}
+
+	@Test
+	public void testRetentionPolicies() throws InterruptedException {
+		// Without a policy, a pool's values are garbage collected once they're no longer used.
+		//
+		URIPool pool = new URIPool(null);
+		pool.setRetentionPolicy(null);
+		assert pool.getRetentionPolicy() == null;
+		List<WeakReference<URI>> references = internWeakly(pool, "weak", 4);
+		assumeTrue(collect(references, 4));
+
+		// A strong pool retains every value until the policy is removed.
+		//
+		pool.setRetentionPolicy(RetentionPolicy.STRONG);
+		references = internWeakly(pool, "strong", 4);
+		assert !collect(references, 1);
+		assert pool.intern("platform:/resource/strong/file0.xmi") == references.get(0).get();
+		pool.setRetentionPolicy(null);
+		assert collect(references, 4);
+
+		// A soft pool retains the values while there's no memory pressure.
+		//
+		pool.setRetentionPolicy(RetentionPolicy.SOFT);
+		references = internWeakly(pool, "soft", 4);
+		assert !collect(references, 1);
+		pool.setRetentionPolicy(null);
+		assert collect(references, 4);
+
+		// A hot set retains a bounded number of values, giving those interned again a second chance.
+		//
+		pool.setRetentionPolicy(RetentionPolicy.createHotSet(4));
+		references = internWeakly(pool, "hot", 4);
+		assert pool.intern(new String("platform:/resource/hot/file0.xmi")) == references.get(0).get();
+		references.addAll(internWeakly(pool, "hotter", 1));
+		assert collect(references, 1);
+		assert references.get(1).get() == null;
+		for (int i = 0; i < references.size(); ++i) {
+			assert i == 1 || references.get(i).get() != null : i;
+		}
+		pool.setRetentionPolicy(null);
+		assert collect(references, 5);
+
+		// A URI found by a batch is promoted back into the hot set, just like one found individually.
+		//
+		URIPoolContext context = new URIPoolContext("hotBatch", 0);
+		context.pool.setRetentionPolicy(RetentionPolicy.createHotSet(4));
+		URIPoolContext.setCurrent(context);
+		try {
+			String string = "platform:/resource/hotBatch/file.xmi";
+			URI uri = URI.createURIs(new String[] { string })[0];
+			URI[] others = URI.createURIs(new String[] { "platform:/resource/hotBatch/other0.xmi", "platform:/resource/hotBatch/other1.xmi", "platform:/resource/hotBatch/other2.xmi", "platform:/resource/hotBatch/other3.xmi" });
+			assert others.length == 4;
+			assert URI.createURIs(new String[] { new String(string) })[0] == uri;
+			references = Collections.singletonList(new WeakReference<URI>(uri));
+			uri = null;
+			assert !collect(references, 1);
+		} finally {
+			URIPoolContext.setCurrent(null);
+			context.dispose();
+		}
+
+		// Threads promoting a working set larger than the hot set don't lock, and never retain more values than its capacity.
+		//
+		final URIPool hotPool = new URIPool(null);
+		hotPool.setRetentionPolicy(RetentionPolicy.createHotSet(64));
+		final URI[][] results = new URI[4][1000];
+		Thread[] threads = new Thread[results.length];
+		for (int t = 0; t < threads.length; ++t) {
+			final URI[] uris = results[t];
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int round = 0; round < 5; ++round) {
+						for (int i = 0; i < uris.length; ++i) {
+							uris[i] = hotPool.intern("platform:/resource/contended/file" + i + ".xmi");
+						}
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (int i = 0; i < 1000; ++i) {
+			for (URI[] uris : results) {
+				assert uris[i] == results[0][i];
+			}
+		}
+		int retainedCount = 0;
+		for (WeakInterningHashSet.Entry<URI> entry : hotPool.entries) {
+			for (; entry != null; entry = entry.next) {
+				if (entry.retained != null) {
+					++retainedCount;
+				}
+			}
+		}
+		assert retainedCount > 0 && retainedCount <= 64 : retainedCount;
+	}
+
+	/**
+	 * Interns the given number of URIs in the pool, returning weak references to them.
+	 */
+	private static List<WeakReference<URI>> internWeakly(URIPool pool, String project, int count) {
+		List<WeakReference<URI>> references = new ArrayList<WeakReference<URI>>();
+		for (int i = 0; i < count; ++i) {
+			references.add(new WeakReference<URI>(pool.intern("platform:/resource/" + project + "/file" + i + ".xmi")));
+		}
+		return references;
+	}
+
+	/**
+	 * Returns whether at least the given number of referenced URIs is garbage collected within a short time.
+	 */
+	private static boolean collect(List<WeakReference<URI>> references, int count) throws InterruptedException {
+		for (int attempt = 0; attempt < 10; ++attempt) {
+			System.gc();
+			int collected = 0;
+			for (WeakReference<URI> reference : references) {
+				if (reference.get() == null) {
+					++collected;
+				}
+			}
+			if (collected >= count) {
+				return true;
+			}
+			Thread.sleep(10);
+		}
+		return false;
+	}
+
+	@Test
+	public void testURIScope() throws InterruptedException {
+		final URIScope scope = URI.openScope();
+		try {
+			String[] strings = {
+				"platform:/resource/scope/a.xmi",
+				"platform:/resource/scope/a.xmi#//@b.0",
+				"../scope/a.xmi#/",
+				"mailto:scope@eclipse.org",
+				"http://www.eclipse.org/scope?query"
+			};
+			for (String string : strings) {
+				URI uri = URI.createURI(string);
+				assert uri.toString().equals(string);
+				assert URI.createURI(new String(string)) == uri;
+			}
+			assert scope.size() == strings.length;
+
+			// The URIs are the pooled ones, and they're retained until the scope is closed.
+			//
+			List<WeakReference<URI>> references = new ArrayList<WeakReference<URI>>();
+			for (int i = 0; i < 3000; ++i) {
+				URI uri = URI.createURI("platform:/resource/scope/file" + i + ".xmi#" + i);
+				assert URI.createURI(new StringBuilder().append(uri).toString()) == uri;
+				references.add(new WeakReference<URI>(uri));
+			}
+			assert scope.size() == strings.length + 3000;
+			assert !collect(references, 1);
+
+			// A batch is also held by the scope, while URIs created from characters or bytes are pooled but not held.
+			//
+			String[] batch = { "platform:/resource/scope/batch/a.xmi", strings[1], null, "platform:/resource/scope/batch/b.xmi#//@c.0" };
+			URI[] batchURIs = URI.createURIs(batch);
+			assert batchURIs[1] == URI.createURI(strings[1]);
+			assert batchURIs[2] == null;
+			assert batchURIs[3].toString().equals(batch[3]);
+			assert scope.size() == strings.length + 3002;
+			String characters = "platform:/resource/scope/characters/a.xmi#//@d.0";
+			URI charactersURI = URI.createURI(characters.toCharArray(), 0, characters.length());
+			assert URI.createURI(new StringBuilder(characters), 0, characters.length()) == charactersURI;
+			assert URI.createURI(characters.getBytes(), 0, characters.length()) == charactersURI;
+			assert scope.size() == strings.length + 3002;
+			assert URI.createURI(characters) == charactersURI;
+			assert scope.size() == strings.length + 3003;
+
+			// A nested scope becomes current until it's closed.
+			//
+			URIScope nestedScope = URI.openScope();
+			URI.createURI(strings[0]);
+			assert nestedScope.size() == 1;
+			nestedScope.close();
+			assert !nestedScope.isOpen();
+			URI.createURI(strings[0]);
+			assert scope.size() == strings.length + 3003;
+
+			final boolean[] failed = new boolean[1];
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					try {
+						scope.close();
+					} catch (IllegalStateException exception) {
+						failed[0] = true;
+					}
+				}
+			};
+			thread.start();
+			thread.join();
+			assert failed[0] && scope.isOpen();
+
+			scope.close();
+			assert !scope.isOpen() && scope.size() == 0;
+			assumeTrue(URI.POOL.getRetentionPolicy() == null && URI.FRAGMENT_POOL.getRetentionPolicy() == null);
+			assert collect(references, 3000);
+		} finally {
+			scope.close();
+		}
+	}
+
+	@Test
+	public void testURIPoolContext() {
+		URIPoolContext tenant = new URIPoolContext("tenant", 0);
+		URIPoolContext otherTenant = new URIPoolContext("otherTenant", 0);
+		URIPoolContext boundedTenant = new URIPoolContext("boundedTenant", 3);
+		String string = "platform:/resource/tenant/model/a.xmi";
+		URI shared = URI.createURI(string);
+		assert URIPoolContext.getCurrent() == null;
+
+		assert URIPoolContext.setCurrent(tenant) == null;
+		try {
+			assert URIPoolContext.getCurrent() == tenant;
+			URI uri = URI.createURI(string);
+			assert uri != shared && uri.toString().equals(string);
+			assert URI.createURI(new String(string)) == uri;
+			assert URI.createURI(string + "#//a").trimFragment() == uri;
+			assert uri.segment(1) == shared.segment(1);
+
+			// Derived URIs are also interned in the context's pools.
+			//
+			URI resolved = URI.createURI("../other/b.xmi").resolve(uri);
+			assert resolved == URI.createURI("platform:/resource/tenant/other/b.xmi");
+			assert tenant.getStatistics().getSize() == 3;
+			assert tenant.getFragmentStatistics().getSize() == 1;
+
+			assert URIPoolContext.setCurrent(otherTenant) == tenant;
+			URI otherURI = URI.createURI(string);
+			assert otherURI != uri && otherURI != shared;
+			assert otherTenant.getStatistics().getSize() == 1;
+
+			assert URIPoolContext.setCurrent(null) == otherTenant;
+			assert URI.createURI(string) == shared;
+
+			// A bounded context rejects new URIs once it's full.
+			//
+			URIPoolContext.setCurrent(boundedTenant);
+			URI[] uris = new URI[3];
+			for (int i = 0; i < uris.length; ++i) {
+				uris[i] = URI.createURI("http://www.eclipse.org/tenant/" + i);
+			}
+			try {
+				URI.createURI("http://www.eclipse.org/tenant/3");
+				fail("A full pool must reject a new URI");
+			} catch (IllegalStateException exception) {
+				// Expected.
+			}
+			assert boundedTenant.getStatistics().getRejectionCount() == 1;
+			assert boundedTenant.getStatistics().getMaximumSize() == 3;
+			assert URI.createURI("http://www.eclipse.org/tenant/0") == uris[0];
+		} finally {
+			URIPoolContext.setCurrent(null);
+		}
+		assert URIPoolContext.getCurrent() == null;
+	}
+
+	@Test
+	public void testURIPoolContextResolveCaches() {
+		URI base = URI.createURI("platform:/resource/caches/model/a.xmi");
+		URI relative = URI.createURI("../other/b.xmi");
+		URI absolute = URI.createURI("platform:/resource/caches/other/c.xmi");
+		URIPoolContext tenant = new URIPoolContext("cachingTenant", 0);
+		URIPoolContext.setCurrent(tenant);
+		URI tenantResolved;
+		URI tenantDeresolved;
+		try {
+			tenantResolved = relative.resolve(base);
+			tenantDeresolved = absolute.deresolve(base);
+			assert relative.resolve(base) == tenantResolved;
+			assert absolute.deresolve(base) == tenantDeresolved;
+		} finally {
+			URIPoolContext.setCurrent(null);
+		}
+
+		// Results cached in a context are not returned outside of it, nor vice versa.
+		//
+		URI resolved = relative.resolve(base);
+		URI deresolved = absolute.deresolve(base);
+		assert resolved != tenantResolved && resolved == URI.createURI("platform:/resource/caches/other/b.xmi");
+		assert deresolved != tenantDeresolved && deresolved == URI.createURI("../other/c.xmi");
+		assert resolved.toString().equals(tenantResolved.toString());
+		assert deresolved.toString().equals(tenantDeresolved.toString());
+
+		URIPoolContext.setCurrent(tenant);
+		try {
+			assert relative.resolve(base) == tenantResolved;
+			assert absolute.deresolve(base) == tenantDeresolved;
+		} finally {
+			URIPoolContext.setCurrent(null);
+		}
+	}
+
+	@Test
+	public void testURIPoolContextDispose() throws InterruptedException {
+		URIPoolContext tenant = new URIPoolContext("disposedTenant", 0);
+		WeakReference<URIPool> poolReference = new WeakReference<URIPool>(tenant.pool);
+		WeakReference<FragmentPool> fragmentPoolReference = new WeakReference<FragmentPool>(tenant.fragmentPool);
+		URIPoolContext.setCurrent(tenant);
+		try {
+			URI uri = URI.createURI("platform:/resource/disposed/a.xmi#//@b");
+			assert URI.createURI(new String("platform:/resource/disposed/a.xmi#//@b")) == uri;
+			assert URI.createURI(new StringBuilder("platform:/resource/disposed/b.xmi"), 0, 33).segmentCount() == 3;
+
+			// Disposing the current context reverts to the shared pools.
+			//
+			tenant.dispose();
+			assert tenant.isDisposed();
+			assert URIPoolContext.getCurrent() == null;
+			assert URI.createURI("platform:/resource/disposed/a.xmi#//@b") != uri;
+			tenant.dispose();
+		} finally {
+			URIPoolContext.setCurrent(null);
+		}
+
+		try {
+			URIPoolContext.setCurrent(tenant);
+			fail("A disposed context must not become current");
+		} catch (IllegalStateException exception) {
+			// Expected.
+		}
+		try {
+			tenant.getStatistics();
+			fail("A disposed context has no statistics");
+		} catch (IllegalStateException exception) {
+			// Expected.
+		}
+
+		// The pools are garbage collected even though the context is still referenced.
+		//
+		for (int attempt = 0; attempt < 10 && (poolReference.get() != null || fragmentPoolReference.get() != null); ++attempt) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assert poolReference.get() == null && fragmentPoolReference.get() == null;
+		assert tenant.getName().equals("disposedTenant");
+	}
+
 }